@@ -0,0 +1,150 @@
+package com.magouyaware.slidingsheetbehavior.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the recorded gestures in {@code src/testFixtures/resources/gestures} through the touch
+ * interception decision, one event per benchmark operation.  The score is the CPU time per touch
+ * event; run with {@code -PjmhArgs="-prof gc"} to also report allocations per event.
+ *
+ * <p>The nested scrolling content is modeled by {@link ReplayScrollTarget}, which counts how often
+ * the decision asks it for hit tests and scroll checks.  On a device those are view hierarchy
+ * walks, so the counts are reported alongside the timing.</p>
+ *
+ * <p>The {@code eager} decision is the original implementation, which evaluated every condition
+ * (including the hit test and both scroll checks) for each event.  It is kept here as the
+ * baseline for {@link TouchInterceptPolicy#shouldIntercept}.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterceptReplayBenchmark
+{
+    @Param({ "left", "right", "top", "bottom" })
+    public String edge;
+
+    @Param({ "tap", "slowDrag", "fling", "nestedScrollDrag" })
+    public String gesture;
+
+    @Param({ "eager", "shortCircuit" })
+    public String decision;
+
+    private final TouchInterceptPolicy m_policy = new TouchInterceptPolicy();
+    private ReplayScrollTarget m_target;
+    private int[] m_actions;
+    private int[] m_x;
+    private int[] m_y;
+    private int m_index;
+    private boolean m_eager;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        int edgeValue = SampleScreen.edgeFromName(edge);
+        GestureRecording recording = SampleScreen.loadGesture(edgeValue, gesture);
+
+        int count = recording.size();
+        m_actions = new int[count];
+        m_x = new int[count];
+        m_y = new int[count];
+        for (int i = 0; i < count; i++)
+        {
+            m_actions[i] = recording.getAction(i);
+            m_x[i] = recording.getX(i);
+            m_y[i] = recording.getY(i);
+        }
+
+        m_policy.setVertical(SampleScreen.isVertical(edgeValue));
+        m_policy.setTouchSlop(24);
+        m_target = new ReplayScrollTarget(SampleScreen.getContentBounds(edgeValue));
+        m_eager = "eager".equals(decision);
+    }
+
+    @Benchmark
+    public boolean replayEvent()
+    {
+        int index = m_index;
+        m_index = index + 1 == m_actions.length ? 0 : index + 1;
+
+        int action = m_actions[index];
+        if (action == GestureRecording.ACTION_DOWN)
+        {
+            m_policy.onTouchDown(m_x[index], m_y[index]);
+            return false;
+        }
+
+        boolean isMove = action == GestureRecording.ACTION_MOVE;
+        if (m_eager)
+            return eagerShouldIntercept(m_policy, m_target, isMove, m_x[index], m_y[index], false, false);
+
+        return m_policy.shouldIntercept(m_target, isMove, m_x[index], m_y[index], false, false);
+    }
+
+    private static boolean eagerShouldIntercept(TouchInterceptPolicy policy, TouchInterceptPolicy.IScrollTarget target,
+                                                boolean isMoveEvent, float x, float y, boolean ignoreEvents, boolean dragging)
+    {
+        boolean nestedScrollNotNull = target != null;
+        boolean pointInChildBounds = nestedScrollNotNull && target.containsPoint((int) x, (int) y);
+        boolean touchEventIsDrag = policy.indicatesDrag(x, y);
+        boolean needsChildBoundsCheck = policy.canScrollInEventDirection(target, x, y);
+
+        return isMoveEvent &&
+               nestedScrollNotNull &&
+               !ignoreEvents &&
+               !dragging &&
+               (!needsChildBoundsCheck || !pointInChildBounds) &&
+               touchEventIsDrag;
+    }
+
+    /**
+     * Scrolling content in the middle of its list, so it can scroll in both directions
+     */
+    static final class ReplayScrollTarget implements TouchInterceptPolicy.IScrollTarget
+    {
+        private final int[] m_bounds;
+        int hitTests;
+        int scrollChecks;
+
+        ReplayScrollTarget(int[] bounds)
+        {
+            m_bounds = bounds;
+        }
+
+        @Override
+        public boolean containsPoint(int x, int y)
+        {
+            hitTests++;
+            return x >= m_bounds[0] && x < m_bounds[2] && y >= m_bounds[1] && y < m_bounds[3];
+        }
+
+        @Override
+        public boolean canScrollVertically(int direction)
+        {
+            scrollChecks++;
+            return true;
+        }
+
+        @Override
+        public boolean canScrollHorizontally(int direction)
+        {
+            scrollChecks++;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.magouyaware.slidingsheetbehavior.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the work the sheet does for each frame of a drag: clamping the dragged position,
+ * computing the slide offset, and the release decisions that are made from the position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SheetGeometryBenchmark
+{
+    private static final int PARENT_SIZE = 1920;
+    private static final int CHILD_SIZE = 1600;
+    private static final int PEEK_SIZE = 300;
+    private static final int POSITION_COUNT = 1024;
+
+    /**
+     * The geometry only depends on the edge through whether the slide is reversed (left and top
+     * sheets) or not (right and bottom sheets), so only those two cases are measured
+     */
+    @Param({ "false", "true" })
+    public boolean reversed;
+
+    private final SheetGeometry m_geometry = new SheetGeometry();
+    private final int[] m_positions = new int[POSITION_COUNT];
+    private final float[] m_velocities = new float[POSITION_COUNT];
+    private int m_index;
+
+    @Setup
+    public void setUp()
+    {
+        m_geometry.setReversed(reversed);
+        m_geometry.update(PARENT_SIZE, CHILD_SIZE, PEEK_SIZE);
+
+        // Sweep from hidden to expanded and back, with velocities in both directions
+        int hidden = m_geometry.getHiddenPosition();
+        int expanded = m_geometry.getExpandedPosition();
+        for (int i = 0; i < POSITION_COUNT; i++)
+        {
+            float fraction = (float) Math.abs(Math.sin(i * Math.PI / POSITION_COUNT * 4));
+            m_positions[i] = hidden + Math.round((expanded - hidden) * fraction);
+            m_velocities[i] = (i % 3 - 1) * 2500f;
+        }
+    }
+
+    @Benchmark
+    public void dragFrame(Blackhole blackhole)
+    {
+        int index = m_index++ & (POSITION_COUNT - 1);
+        int position = m_geometry.clampPosition(m_positions[index], true);
+
+        blackhole.consume(m_geometry.calculateSlideOffset(position));
+    }
+
+    @Benchmark
+    public void releaseDecision(Blackhole blackhole)
+    {
+        int index = m_index++ & (POSITION_COUNT - 1);
+        int position = m_positions[index];
+
+        blackhole.consume(m_geometry.shouldHide(position, m_velocities[index], true, false));
+        blackhole.consume(m_geometry.isCloserToExpanded(position));
+    }
+
+    @Benchmark
+    public boolean layoutUnchanged()
+    {
+        return m_geometry.update(PARENT_SIZE, CHILD_SIZE, PEEK_SIZE);
+    }
+}
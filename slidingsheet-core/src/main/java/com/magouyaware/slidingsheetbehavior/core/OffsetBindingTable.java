@@ -0,0 +1,152 @@
+package com.magouyaware.slidingsheetbehavior.core;
+
+/**
+ * The numbers behind a set of slide offset bindings, each of which maps a range of the sheet's
+ * slide offset onto a range of values for one property.  The bindings are kept in parallel
+ * primitive arrays so that evaluating all of them each frame is a tight loop over a few arrays,
+ * with no allocation and no boxing.  The property is an opaque code that the caller uses to
+ * decide where to apply each value.  Nothing in here depends on Android.
+ */
+public final class OffsetBindingTable
+{
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] m_properties = new int[INITIAL_CAPACITY];
+    private float[] m_fromOffsets = new float[INITIAL_CAPACITY];
+    private float[] m_offsetScales = new float[INITIAL_CAPACITY];
+    private float[] m_fromValues = new float[INITIAL_CAPACITY];
+    private float[] m_valueRanges = new float[INITIAL_CAPACITY];
+    private int m_count;
+
+    /**
+     * Adds a binding.  Outside of the offset range, the value stays at whichever end of the
+     * value range is closest.
+     *
+     * @param property   The code of the property the binding drives
+     * @param fromOffset The slide offset, from -1 to 1, at which the property has {@code fromValue}
+     * @param toOffset   The slide offset, from -1 to 1, at which the property has {@code toValue}
+     * @param fromValue  The value of the property at {@code fromOffset}
+     * @param toValue    The value of the property at {@code toOffset}
+     * @return The index of the new binding
+     */
+    public int add(int property, float fromOffset, float toOffset, float fromValue, float toValue)
+    {
+        if (!isValidOffset(fromOffset) || !isValidOffset(toOffset))
+            throw new IllegalArgumentException("Slide offsets must be between -1 and 1: " + fromOffset + ", " + toOffset);
+
+        if (fromOffset == toOffset)
+            throw new IllegalArgumentException("The slide offset range must not be empty: " + fromOffset);
+
+        if (m_count == m_properties.length)
+            grow();
+
+        int index = m_count++;
+        m_properties[index] = property;
+        m_fromOffsets[index] = fromOffset;
+        m_offsetScales[index] = 1f / (toOffset - fromOffset);
+        m_fromValues[index] = fromValue;
+        m_valueRanges[index] = toValue - fromValue;
+        return index;
+    }
+
+    private static boolean isValidOffset(float offset)
+    {
+        return offset >= -1 && offset <= 1;
+    }
+
+    private void grow()
+    {
+        int capacity = m_count * 2;
+        m_properties = copyOf(m_properties, capacity);
+        m_fromOffsets = copyOf(m_fromOffsets, capacity);
+        m_offsetScales = copyOf(m_offsetScales, capacity);
+        m_fromValues = copyOf(m_fromValues, capacity);
+        m_valueRanges = copyOf(m_valueRanges, capacity);
+    }
+
+    private static int[] copyOf(int[] values, int capacity)
+    {
+        int[] copy = new int[capacity];
+        System.arraycopy(values, 0, copy, 0, values.length);
+        return copy;
+    }
+
+    private static float[] copyOf(float[] values, int capacity)
+    {
+        float[] copy = new float[capacity];
+        System.arraycopy(values, 0, copy, 0, values.length);
+        return copy;
+    }
+
+    /**
+     * Removes a binding.  The bindings after it move down one index, keeping their order.
+     *
+     * @param index The index of the binding
+     */
+    public void remove(int index)
+    {
+        checkIndex(index);
+
+        int moved = m_count - index - 1;
+        System.arraycopy(m_properties, index + 1, m_properties, index, moved);
+        System.arraycopy(m_fromOffsets, index + 1, m_fromOffsets, index, moved);
+        System.arraycopy(m_offsetScales, index + 1, m_offsetScales, index, moved);
+        System.arraycopy(m_fromValues, index + 1, m_fromValues, index, moved);
+        System.arraycopy(m_valueRanges, index + 1, m_valueRanges, index, moved);
+        m_count--;
+    }
+
+    /**
+     * Removes every binding.
+     */
+    public void clear()
+    {
+        m_count = 0;
+    }
+
+    /**
+     * @return The number of bindings
+     */
+    public int size()
+    {
+        return m_count;
+    }
+
+    /**
+     * @param index The index of the binding
+     * @return The code of the property the binding drives
+     */
+    public int getProperty(int index)
+    {
+        checkIndex(index);
+        return m_properties[index];
+    }
+
+    /**
+     * @param index  The index of the binding
+     * @param offset The slide offset of the sheet
+     * @return How far the offset is through the binding's offset range, from 0 to 1
+     */
+    public float getFraction(int index, float offset)
+    {
+        float fraction = (offset - m_fromOffsets[index]) * m_offsetScales[index];
+        return fraction < 0 ? 0 : (fraction > 1 ? 1 : fraction);
+    }
+
+    /**
+     * @param index    The index of the binding
+     * @param fraction How far the sheet is through the binding's offset range, usually from
+     *                 {@link #getFraction(int, float)}.  Interpolated fractions may go past 0 or 1.
+     * @return The value of the property
+     */
+    public float getValue(int index, float fraction)
+    {
+        return m_fromValues[index] + m_valueRanges[index] * fraction;
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= m_count)
+            throw new IndexOutOfBoundsException("Invalid binding index: " + index);
+    }
+}
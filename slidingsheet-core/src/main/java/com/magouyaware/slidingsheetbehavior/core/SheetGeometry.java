@@ -0,0 +1,536 @@
+package com.magouyaware.slidingsheetbehavior.core;
+
+import java.util.Arrays;
+
+/**
+ * The positions a sliding sheet moves between, and the decisions that are made from them while
+ * the sheet is dragged or settles.  A position is the coordinate of the sheet's top edge (for
+ * sheets that slide vertically) or left edge (for sheets that slide horizontally), relative to
+ * its parent.
+ *
+ * <p>Everything that can be is resolved in {@link #update(int, int, int)}, so the per-frame
+ * queries are plain field reads and a little arithmetic.  Nothing in here depends on Android.</p>
+ */
+public final class SheetGeometry
+{
+    /**
+     * Returned by {@link #findReleaseStop(int, float)} when the sheet should settle collapsed
+     */
+    public static final int STOP_COLLAPSED = -1;
+
+    /**
+     * Returned by {@link #findReleaseStop(int, float)} when the sheet should settle expanded
+     */
+    public static final int STOP_EXPANDED = -2;
+
+    /**
+     * Returned by {@link #findNearestStop(float, boolean, boolean)} when the sheet should hide
+     */
+    public static final int STOP_HIDDEN = -3;
+
+    private static final int[] NO_POSITIONS = new int[0];
+    private static final float HIDE_THRESHOLD = 0.5f;
+    private static final float HIDE_FRICTION = 0.1f;
+
+    private boolean m_reversed;
+    private boolean m_valid;
+    private int m_parentSize;
+    private int m_childSize;
+    private int m_peekSize;
+    private int m_minOffset;
+    private int m_maxOffset;
+    private int m_hiddenPosition;
+    private int m_collapsedPosition;
+    private int m_expandedPosition;
+    private int m_expandedThreshold;
+    private float m_hiddenRange;
+    private float m_expandedRange;
+
+    // Detents are given as either fractions of the parent or sizes in pixels, and resolved into
+    // positions (ordered from collapsed towards expanded) whenever the geometry is updated
+    private float[] m_detentFractions;
+    private int[] m_detentSizes;
+    private int[] m_detentPositions = NO_POSITIONS;
+    private int m_detentCount;
+
+    // Every resting position, sorted in ascending order for binary searches, along with the stop
+    // that each position belongs to
+    private int[] m_stopPositions = NO_POSITIONS;
+    private int[] m_stops = NO_POSITIONS;
+    private int m_stopCount;
+
+    /**
+     * Sets whether the sheet is anchored to the leading edge (left or top) of its parent.  The
+     * geometry has to be updated again after this changes.
+     *
+     * @param reversed True for sheets sliding from the left or top edge, false for the right or bottom edge
+     */
+    public void setReversed(boolean reversed)
+    {
+        if (m_reversed != reversed)
+        {
+            m_reversed = reversed;
+            m_valid = false;
+        }
+    }
+
+    public boolean isReversed()
+    {
+        return m_reversed;
+    }
+
+    /**
+     * @return True if {@link #update(int, int, int)} has resolved the geometry for the current edge
+     */
+    public boolean isValid()
+    {
+        return m_valid;
+    }
+
+    /**
+     * Sets the detents (extra resting positions between collapsed and expanded) as the fraction
+     * of the parent that the sheet covers when it is resting at each one.  Detents that are not
+     * between the collapsed and expanded positions are ignored.  The geometry has to be updated
+     * again after this changes.
+     *
+     * @param fractions The fractions, from 0 to 1, or null to remove all detents
+     */
+    public void setDetentFractions(float[] fractions)
+    {
+        m_detentFractions = fractions != null && fractions.length > 0 ? fractions.clone() : null;
+        m_detentSizes = null;
+        m_valid = false;
+    }
+
+    /**
+     * Sets the detents (extra resting positions between collapsed and expanded) as the size of
+     * the sheet that is visible when it is resting at each one.  Detents that are not between the
+     * collapsed and expanded positions are ignored.  The geometry has to be updated again after
+     * this changes.
+     *
+     * @param sizes The visible sizes, in pixels, or null to remove all detents
+     */
+    public void setDetentSizes(int[] sizes)
+    {
+        m_detentSizes = sizes != null && sizes.length > 0 ? sizes.clone() : null;
+        m_detentFractions = null;
+        m_valid = false;
+    }
+
+    /**
+     * @return The number of detents that resolved to a position between collapsed and expanded
+     */
+    public int getDetentCount()
+    {
+        return m_detentCount;
+    }
+
+    /**
+     * @param index The index of the detent.  Detents are ordered from the one closest to the
+     *              collapsed position to the one closest to the expanded position.
+     * @return The position of the detent
+     */
+    public int getDetentPosition(int index)
+    {
+        if (index < 0 || index >= m_detentCount)
+            throw new IndexOutOfBoundsException("Invalid detent index: " + index);
+
+        return m_detentPositions[index];
+    }
+
+    /**
+     * Finds the resting position that a released sheet should settle at.  A sheet that is moving
+     * settles at the next resting position in the direction it is moving, and a sheet that isn't
+     * moving settles at the closest one.
+     *
+     * @param position The position of the sheet when it was released
+     * @param velocity The velocity of the sheet when it was released; only the sign is used
+     * @return The index of the detent to settle at, or {@link #STOP_COLLAPSED} or {@link #STOP_EXPANDED}
+     */
+    public int findReleaseStop(int position, float velocity)
+    {
+        int last = m_stopCount - 1;
+        int index = Arrays.binarySearch(m_stopPositions, 0, m_stopCount, position);
+
+        int lower;
+        int upper;
+        if (index >= 0)
+        {
+            if (velocity == 0)
+                return m_stops[index];
+
+            lower = index - 1;
+            upper = index + 1;
+        }
+        else
+        {
+            int insertion = -index - 1;
+            lower = insertion - 1;
+            upper = insertion;
+        }
+
+        lower = Math.max(0, lower);
+        upper = Math.min(last, upper);
+
+        if (velocity > 0)
+            return m_stops[upper];
+
+        if (velocity < 0)
+            return m_stops[lower];
+
+        return position - m_stopPositions[lower] <= m_stopPositions[upper] - position ? m_stops[lower] : m_stops[upper];
+    }
+
+    /**
+     * Finds the resting position closest to where a released sheet is predicted to come to rest.
+     * The hidden position lies beyond the collapsed one, so a sheet only hides when its predicted
+     * rest position is closer to hidden than to collapsed, or when the collapsed state is skipped.
+     *
+     * @param position      The predicted rest position of the sheet
+     * @param hideable      True if the sheet is allowed to hide
+     * @param skipCollapsed True if the sheet should skip the collapsed state when it is hiding
+     * @return The index of the detent to settle at, or {@link #STOP_COLLAPSED},
+     *         {@link #STOP_EXPANDED} or {@link #STOP_HIDDEN}
+     */
+    public int findNearestStop(float position, boolean hideable, boolean skipCollapsed)
+    {
+        int last = m_stopCount - 1;
+        int nearest = findNearestIndex(position, 0, last);
+        if (!hideable || m_stops[nearest] != STOP_COLLAPSED)
+            return m_stops[nearest];
+
+        // Collapsed is at the end of the stops that is closest to hidden, so the only other
+        // candidates are hidden itself and, when collapsed is skipped, its neighbour
+        float hiddenDistance = Math.abs(position - m_hiddenPosition);
+        if (!skipCollapsed)
+            return hiddenDistance < Math.abs(position - m_collapsedPosition) ? STOP_HIDDEN : STOP_COLLAPSED;
+
+        int neighbour = m_reversed ? 1 : last - 1;
+        return hiddenDistance <= Math.abs(position - m_stopPositions[neighbour]) ? STOP_HIDDEN : m_stops[neighbour];
+    }
+
+    private int findNearestIndex(float position, int first, int last)
+    {
+        if (position <= m_stopPositions[first])
+            return first;
+
+        if (position >= m_stopPositions[last])
+            return last;
+
+        int index = Arrays.binarySearch(m_stopPositions, first, last + 1, (int) Math.ceil(position));
+        int upper = index >= 0 ? index : -index - 1;
+        int lower = upper - 1;
+        return position - m_stopPositions[lower] <= m_stopPositions[upper] - position ? lower : upper;
+    }
+
+    /**
+     * @param stop A stop returned by {@link #findReleaseStop(int, float)} or
+     *             {@link #findNearestStop(float, boolean, boolean)}
+     * @return The position of the stop
+     */
+    public int getStopPosition(int stop)
+    {
+        if (stop == STOP_HIDDEN)
+            return m_hiddenPosition;
+
+        if (stop == STOP_COLLAPSED)
+            return m_collapsedPosition;
+
+        if (stop == STOP_EXPANDED)
+            return m_expandedPosition;
+
+        return getDetentPosition(stop);
+    }
+
+    /**
+     * Forces the next call to {@link #update(int, int, int)} to recalculate everything.
+     */
+    public void invalidate()
+    {
+        m_valid = false;
+    }
+
+    /**
+     * Resolves the positions for each resting state.  Nothing is recalculated when none of the
+     * sizes have changed since the last update.
+     *
+     * @param parentSize The size of the parent along the slide axis, in pixels
+     * @param childSize  The size of the sheet along the slide axis, in pixels
+     * @param peekSize   The size of the sheet that is visible when it is collapsed, in pixels
+     * @return True if the geometry was recalculated, false if it was already up to date
+     */
+    public boolean update(int parentSize, int childSize, int peekSize)
+    {
+        if (m_valid && m_parentSize == parentSize && m_childSize == childSize && m_peekSize == peekSize)
+            return false;
+
+        m_parentSize = parentSize;
+        m_childSize = childSize;
+        m_peekSize = peekSize;
+
+        if (m_reversed)
+        {
+            m_minOffset = peekSize - childSize;
+            m_maxOffset = 0;
+        }
+        else
+        {
+            m_minOffset = Math.max(0, parentSize - childSize);
+            m_maxOffset = Math.max(parentSize - peekSize, m_minOffset);
+        }
+
+        m_hiddenPosition = m_reversed ? -childSize : parentSize;
+        m_collapsedPosition = m_reversed ? m_minOffset : m_maxOffset;
+        m_expandedPosition = m_reversed ? m_maxOffset : m_minOffset;
+        m_expandedThreshold = (m_collapsedPosition - m_expandedPosition) / 2;
+
+        m_hiddenRange = Math.abs(m_hiddenPosition - m_collapsedPosition);
+        m_expandedRange = Math.abs(m_collapsedPosition - m_expandedPosition);
+
+        resolveDetents();
+
+        m_valid = true;
+        return true;
+    }
+
+    private void resolveDetents()
+    {
+        int specCount = m_detentFractions != null ? m_detentFractions.length : (m_detentSizes != null ? m_detentSizes.length : 0);
+        if (m_detentPositions.length < specCount)
+            m_detentPositions = new int[specCount];
+
+        int low = Math.min(m_collapsedPosition, m_expandedPosition);
+        int high = Math.max(m_collapsedPosition, m_expandedPosition);
+
+        int count = 0;
+        for (int i = 0; i < specCount; i++)
+        {
+            int visibleSize = m_detentFractions != null ? Math.round(m_detentFractions[i] * m_parentSize) : m_detentSizes[i];
+            int position = m_reversed ? visibleSize - m_childSize : m_parentSize - visibleSize;
+
+            if (position > low && position < high)
+                m_detentPositions[count++] = position;
+        }
+
+        // Sort and drop duplicates, then order from collapsed towards expanded
+        Arrays.sort(m_detentPositions, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++)
+        {
+            if (unique == 0 || m_detentPositions[unique - 1] != m_detentPositions[i])
+                m_detentPositions[unique++] = m_detentPositions[i];
+        }
+
+        m_detentCount = unique;
+
+        int stopCount = unique + 2;
+        if (m_stopPositions.length < stopCount)
+        {
+            m_stopPositions = new int[stopCount];
+            m_stops = new int[stopCount];
+        }
+
+        // Collapsed is the highest position unless the sheet is reversed, so the ascending
+        // positions run from expanded to collapsed
+        m_stopPositions[0] = low;
+        m_stops[0] = m_reversed ? STOP_COLLAPSED : STOP_EXPANDED;
+        for (int i = 0; i < unique; i++)
+        {
+            m_stopPositions[i + 1] = m_detentPositions[i];
+            m_stops[i + 1] = m_reversed ? i : unique - 1 - i;
+        }
+        m_stopPositions[unique + 1] = high;
+        m_stops[unique + 1] = m_reversed ? STOP_EXPANDED : STOP_COLLAPSED;
+        m_stopCount = stopCount;
+
+        if (!m_reversed)
+            reverse(m_detentPositions, unique);
+    }
+
+    private static void reverse(int[] values, int count)
+    {
+        for (int i = 0, j = count - 1; i < j; i++, j--)
+        {
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+
+    public int getParentSize()
+    {
+        return m_parentSize;
+    }
+
+    public int getChildSize()
+    {
+        return m_childSize;
+    }
+
+    public int getPeekSize()
+    {
+        return m_peekSize;
+    }
+
+    public int getMinOffset()
+    {
+        return m_minOffset;
+    }
+
+    public int getMaxOffset()
+    {
+        return m_maxOffset;
+    }
+
+    public int getHiddenPosition()
+    {
+        return m_hiddenPosition;
+    }
+
+    public int getCollapsedPosition()
+    {
+        return m_collapsedPosition;
+    }
+
+    public int getExpandedPosition()
+    {
+        return m_expandedPosition;
+    }
+
+    /**
+     * The offset of the sheet within [-1,1] range. Offset increases as the sheet is moving
+     * towards expanded state. From 0 to 1 the sheet is between collapsed and expanded states and
+     * from -1 to 0 it is between hidden and collapsed states.
+     *
+     * @param position The position of the sheet
+     * @return The slide offset for the position
+     */
+    public float calculateSlideOffset(float position)
+    {
+        boolean betweenHiddenAndCollapsed = m_reversed ?
+                (position >= m_hiddenPosition && position < m_collapsedPosition) :
+                (position > m_collapsedPosition && position <= m_hiddenPosition);
+
+        boolean betweenCollapsedAndExpanded = m_reversed ?
+                (position > m_collapsedPosition && position <= m_expandedPosition) :
+                (position >= m_expandedPosition && position < m_collapsedPosition);
+
+        float slideOffset = 0.0f; //Assume collapsed
+        if (betweenHiddenAndCollapsed)
+        {
+            float relativePosition = Math.abs(position - m_collapsedPosition);
+            slideOffset = -1 * (relativePosition / m_hiddenRange);
+        }
+        else if (betweenCollapsedAndExpanded)
+        {
+            float relativePosition = Math.abs(position - m_expandedPosition);
+            slideOffset = 1 - (relativePosition / m_expandedRange);
+        }
+
+        return slideOffset;
+    }
+
+    /**
+     * @param position The position of the sheet
+     * @return True if the sheet is closer to its expanded position than its collapsed position
+     */
+    public boolean isCloserToExpanded(int position)
+    {
+        return m_reversed ? position > m_expandedThreshold : position < m_expandedThreshold;
+    }
+
+    /**
+     * Keeps a dragged position within the range the sheet is allowed to move in.
+     *
+     * @param position The requested position of the sheet
+     * @param hideable True if the sheet can be dragged all the way to its hidden position
+     * @return The closest allowed position
+     */
+    public int clampPosition(int position, boolean hideable)
+    {
+        int low = getLowestPosition(hideable);
+        int high = getHighestPosition(hideable);
+        return position < low ? low : (position > high ? high : position);
+    }
+
+    /**
+     * Keeps a dragged sub-pixel position within the range the sheet is allowed to move in.
+     *
+     * @see #clampPosition(int, boolean)
+     */
+    public float clampPosition(float position, boolean hideable)
+    {
+        int low = getLowestPosition(hideable);
+        int high = getHighestPosition(hideable);
+        return position < low ? low : (position > high ? high : position);
+    }
+
+    private int getLowestPosition(boolean hideable)
+    {
+        if (m_reversed)
+            return hideable ? -m_childSize : m_minOffset;
+
+        return m_minOffset;
+    }
+
+    private int getHighestPosition(boolean hideable)
+    {
+        if (m_reversed)
+            return m_maxOffset;
+
+        return hideable ? m_parentSize : m_maxOffset;
+    }
+
+    /**
+     * @param hideable True if the sheet can be dragged all the way to its hidden position
+     * @return The distance the sheet can be dragged, in pixels
+     */
+    public int getDragRange(boolean hideable)
+    {
+        return hideable ? m_parentSize - m_minOffset : m_maxOffset - m_minOffset;
+    }
+
+    /**
+     * Decides whether a released sheet should hide, rather than settle in its collapsed state.
+     *
+     * @param position      The position of the sheet when it was released
+     * @param velocity      The velocity of the sheet when it was released, in pixels per second
+     * @param hideable      True if the sheet is allowed to hide
+     * @param skipCollapsed True if the sheet should skip the collapsed state when it is hiding
+     * @return True if the sheet should hide
+     */
+    public boolean shouldHide(int position, float velocity, boolean hideable, boolean skipCollapsed)
+    {
+        if (!hideable)
+            return false;
+
+        //If the velocity indicates we are expanding, then we also don't want to hide
+        if ((velocity < 0 && !m_reversed) || (velocity > 0 && m_reversed) || (velocity == 0 && isCloserToExpanded(position)))
+            return false;
+
+        // Now that we've established we aren't opening the drawer, we can always return true if
+        // we are supposed to skip the collapsed state
+        if (skipCollapsed)
+            return true;
+
+        if (!m_reversed)
+        {
+            // Do not hide if the sheet is not in the peek area
+            if (position < m_maxOffset)
+                return false;
+
+            final float newPosition = position + velocity * HIDE_FRICTION;
+            return Math.abs(newPosition - m_maxOffset) / (float) m_peekSize > HIDE_THRESHOLD;
+        }
+        else
+        {
+            // Do not hide if the sheet is not in the peek area
+            int endPosition = position + m_childSize;
+            if (endPosition > m_peekSize)
+                return false;
+
+            final float newEndPosition = endPosition + velocity * HIDE_FRICTION;
+            return (newEndPosition / (float) m_peekSize) < HIDE_THRESHOLD;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.magouyaware.slidingsheetbehavior.core;
+
+/**
+ * Decides whether a sliding sheet should take over a touch gesture that its
+ * {@code ViewDragHelper} didn't capture, which happens when the sheet isn't the top most child of
+ * its parent.  Touches over nested scrolling content that can scroll in the direction of the
+ * gesture are left to the content, since nested scrolling moves the sheet in that case.
+ *
+ * <p>Coordinates are relative to the sheet's parent, in pixels.</p>
+ */
+public final class TouchInterceptPolicy
+{
+    /**
+     * The nested scrolling content inside the sheet
+     */
+    public interface IScrollTarget
+    {
+        /**
+         * @return True if the point is within the bounds of the scrolling content
+         */
+        boolean containsPoint(int x, int y);
+
+        /**
+         * @param direction Negative to check scrolling up, positive to check scrolling down
+         * @return True if the content can scroll vertically in the given direction
+         */
+        boolean canScrollVertically(int direction);
+
+        /**
+         * @param direction Negative to check scrolling left, positive to check scrolling right
+         * @return True if the content can scroll horizontally in the given direction
+         */
+        boolean canScrollHorizontally(int direction);
+    }
+
+    private boolean m_vertical;
+    private int m_touchSlop;
+    private int m_initialX;
+    private int m_initialY;
+
+    /**
+     * @param vertical True if the sheet slides vertically, false if it slides horizontally
+     */
+    public void setVertical(boolean vertical)
+    {
+        m_vertical = vertical;
+    }
+
+    /**
+     * @param touchSlop The distance a touch can move before it is considered a drag, in pixels
+     */
+    public void setTouchSlop(int touchSlop)
+    {
+        m_touchSlop = touchSlop;
+    }
+
+    /**
+     * Records where a gesture started
+     */
+    public void onTouchDown(float x, float y)
+    {
+        m_initialX = (int) x;
+        m_initialY = (int) y;
+    }
+
+    public int getInitialX()
+    {
+        return m_initialX;
+    }
+
+    public int getInitialY()
+    {
+        return m_initialY;
+    }
+
+    /**
+     * @return True if the touch has moved further than the touch slop along the slide axis
+     */
+    public boolean indicatesDrag(float x, float y)
+    {
+        int touchDifference = (int) (m_vertical ? m_initialY - y : m_initialX - x);
+        return Math.abs(touchDifference) > m_touchSlop;
+    }
+
+    /**
+     * @return True if the {@code target} can scroll along the axis the touch has mostly moved in
+     */
+    public boolean canScrollInEventDirection(IScrollTarget target, float x, float y)
+    {
+        if (target == null)
+            return false;
+
+        int verticalDifference = m_initialY - (int) y;
+        int horizontalDifference = m_initialX - (int) x;
+
+        if (Math.abs(verticalDifference) > Math.abs(horizontalDifference))
+            return target.canScrollVertically(verticalDifference) || target.canScrollVertically(-verticalDifference);
+        else
+            return target.canScrollHorizontally(horizontalDifference) || target.canScrollHorizontally(-horizontalDifference);
+    }
+
+    /**
+     * Decides whether the sheet should intercept a touch event.  The checks run from cheapest to
+     * most expensive and stop as soon as the answer is known, so the scroll target is only asked
+     * about a move event that has crossed the touch slop.
+     *
+     * @param target       The nested scrolling content, or null if the sheet doesn't have any
+     * @param isMoveEvent  True if the event is a move event
+     * @param x            The x coordinate of the event
+     * @param y            The y coordinate of the event
+     * @param ignoreEvents True if the sheet is ignoring the current gesture
+     * @param dragging     True if the sheet is already being dragged
+     * @return True if the sheet should intercept the event
+     */
+    public boolean shouldIntercept(IScrollTarget target, boolean isMoveEvent, float x, float y, boolean ignoreEvents, boolean dragging)
+    {
+        if (!isMoveEvent || target == null || ignoreEvents || dragging)
+            return false;
+
+        if (!indicatesDrag(x, y))
+            return false;
+
+        // Touches outside of the scrolling content are always the sheet's
+        if (!target.containsPoint((int) x, (int) y))
+            return true;
+
+        // Content that can scroll along the gesture keeps it, and moves the sheet through nested scrolling
+        return !canScrollInEventDirection(target, x, y);
+    }
+}
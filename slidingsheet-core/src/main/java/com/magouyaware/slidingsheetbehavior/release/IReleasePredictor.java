@@ -0,0 +1,20 @@
+package com.magouyaware.slidingsheetbehavior.release;
+
+/**
+ * Predicts where a released sheet would come to rest if it were left to slow down on its own.
+ * The sheet settles at whichever of its resting positions is closest to the predicted one, so
+ * the predictor decides how far a fling carries the sheet.  Positions are along the axis the
+ * sheet slides on, in pixels, and velocities are in pixels per second.
+ */
+public interface IReleasePredictor
+{
+    /**
+     * Predicts the rest position of a release.  This is called on every release, so
+     * implementations should not allocate.
+     *
+     * @param position The position of the sheet when it was released
+     * @param velocity The velocity of the sheet when it was released
+     * @param out      Receives the prediction
+     */
+    void predict(float position, float velocity, ReleasePrediction out);
+}
@@ -0,0 +1,26 @@
+package com.magouyaware.slidingsheetbehavior.release;
+
+/**
+ * The result of an {@link IReleasePredictor}.  Instances are reused from one release to the
+ * next, so they should not be held on to.
+ */
+public final class ReleasePrediction
+{
+    private float m_restPosition;
+
+    /**
+     * @param restPosition The position the sheet would come to rest at, in pixels
+     */
+    public void set(float restPosition)
+    {
+        m_restPosition = restPosition;
+    }
+
+    /**
+     * @return The position the sheet would come to rest at, in pixels
+     */
+    public float getRestPosition()
+    {
+        return m_restPosition;
+    }
+}
@@ -0,0 +1,55 @@
+package com.magouyaware.slidingsheetbehavior.release;
+
+/**
+ * An {@link IReleasePredictor} that uses the same spline deceleration model as the platform's
+ * {@code OverScroller}, so a released sheet travels as far as a list flung at the same speed
+ * would.  Nothing in here depends on Android; the density and friction are passed in by the
+ * sheet (see {@code ViewConfiguration.getScrollFriction()}).
+ */
+public class SplineReleasePredictor implements IReleasePredictor
+{
+    /**
+     * The default scroll friction of the platform
+     */
+    public static final float DEFAULT_FRICTION = 0.015f;
+
+    private static final float INFLEXION = 0.35f;
+    private static final float DECELERATION_RATE = (float) (Math.log(0.78) / Math.log(0.9));
+    private static final float GRAVITY_EARTH = 9.80665f;
+    private static final float INCHES_PER_METER = 39.37f;
+    private static final float TUNING = 0.84f;
+
+    private final float m_frictionCoefficient;
+
+    /**
+     * @param density  The display density, as in {@code DisplayMetrics.density}
+     * @param friction The scroll friction, such as {@link #DEFAULT_FRICTION}.  Higher values
+     *                 stop the sheet sooner.
+     */
+    public SplineReleasePredictor(float density, float friction)
+    {
+        if (density <= 0)
+            throw new IllegalArgumentException("Density must be positive: " + density);
+
+        if (friction <= 0)
+            throw new IllegalArgumentException("Friction must be positive: " + friction);
+
+        float pixelsPerInch = density * 160f;
+        m_frictionCoefficient = friction * GRAVITY_EARTH * INCHES_PER_METER * pixelsPerInch * TUNING;
+    }
+
+    @Override
+    public void predict(float position, float velocity, ReleasePrediction out)
+    {
+        if (velocity == 0)
+        {
+            out.set(position);
+            return;
+        }
+
+        double deceleration = Math.log(INFLEXION * Math.abs(velocity) / m_frictionCoefficient);
+        double distance = m_frictionCoefficient * Math.exp(DECELERATION_RATE / (DECELERATION_RATE - 1.0) * deceleration);
+
+        out.set(position + (float) Math.copySign(distance, velocity));
+    }
+}
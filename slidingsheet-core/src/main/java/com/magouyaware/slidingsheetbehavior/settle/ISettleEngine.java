@@ -0,0 +1,47 @@
+package com.magouyaware.slidingsheetbehavior.settle;
+
+/**
+ * Drives a sliding sheet from where it was released to the position of its target state.
+ * Positions are along the axis the sheet slides on, in pixels, and velocities are in pixels per
+ * second.  Implementations are stepped once per frame by the sheet, using the frame time reported
+ * by the Choreographer.
+ */
+public interface ISettleEngine
+{
+    /**
+     * Starts (or restarts) settling towards a new position.
+     *
+     * @param startPosition  The current position of the sheet
+     * @param targetPosition The position the sheet should come to rest at
+     * @param velocity       The current velocity of the sheet
+     */
+    void start(float startPosition, float targetPosition, float velocity);
+
+    /**
+     * Advances the settle to the given frame time.
+     *
+     * @param frameTimeNanos The time of the frame being rendered, in nanoseconds
+     * @return True if the sheet is still moving, false if it has come to rest at the target position
+     */
+    boolean step(long frameTimeNanos);
+
+    /**
+     * @return The position of the sheet as of the last call to {@link #step(long)}
+     */
+    float getPosition();
+
+    /**
+     * @return The velocity of the sheet as of the last call to {@link #step(long)}
+     */
+    float getVelocity();
+
+    /**
+     * @return True if the engine has been started and has not yet come to rest or been cancelled
+     */
+    boolean isRunning();
+
+    /**
+     * Stops settling, leaving the position where it is.
+     */
+    void cancel();
+}
@@ -0,0 +1,238 @@
+package com.magouyaware.slidingsheetbehavior.settle;
+
+/**
+ * An {@link ISettleEngine} that settles the sheet with a damped spring.  Unlike a fixed duration
+ * curve, the spring starts from the velocity the sheet was released with, so a fast fling
+ * continues smoothly into the settle instead of slowing down and speeding back up.
+ *
+ * <p>The spring is solved analytically for each step, so it is stable regardless of how long a
+ * frame takes.  Nothing in here depends on Android, so the math can be tested on the JVM.</p>
+ */
+public class SpringSettleEngine implements ISettleEngine
+{
+    /**
+     * Stiffness of a spring that settles in roughly the same time as the default settle animation
+     */
+    public static final float STIFFNESS_MEDIUM = 1500f;
+
+    /**
+     * A damping ratio that settles as quickly as possible without overshooting the target
+     */
+    public static final float DAMPING_RATIO_NO_BOUNCE = 1f;
+
+    private static final float DEFAULT_POSITION_THRESHOLD = 0.5f;
+    private static final float DEFAULT_VELOCITY_THRESHOLD = 60f;
+    private static final long NO_FRAME_TIME = -1;
+
+    private final float m_stiffness;
+    private final float m_dampingRatio;
+    private final float m_naturalFrequency;
+    private float m_positionThreshold = DEFAULT_POSITION_THRESHOLD;
+    private float m_velocityThreshold = DEFAULT_VELOCITY_THRESHOLD;
+
+    private float m_position;
+    private float m_velocity;
+    private float m_target;
+    private boolean m_running;
+    private long m_lastFrameTimeNanos = NO_FRAME_TIME;
+
+    /**
+     * Creates an engine using {@link #STIFFNESS_MEDIUM} and {@link #DAMPING_RATIO_NO_BOUNCE}.
+     */
+    public SpringSettleEngine()
+    {
+        this(STIFFNESS_MEDIUM, DAMPING_RATIO_NO_BOUNCE);
+    }
+
+    /**
+     * @param stiffness    The stiffness of the spring.  Higher values settle faster.
+     * @param dampingRatio The damping ratio of the spring.  Values below 1 overshoot the target
+     *                     and bounce back, values above 1 approach the target more slowly.
+     */
+    public SpringSettleEngine(float stiffness, float dampingRatio)
+    {
+        if (stiffness <= 0)
+            throw new IllegalArgumentException("Spring stiffness must be positive: " + stiffness);
+
+        if (dampingRatio < 0)
+            throw new IllegalArgumentException("Spring damping ratio must not be negative: " + dampingRatio);
+
+        m_stiffness = stiffness;
+        m_dampingRatio = dampingRatio;
+        m_naturalFrequency = (float) Math.sqrt(stiffness);
+    }
+
+    public float getStiffness()
+    {
+        return m_stiffness;
+    }
+
+    public float getDampingRatio()
+    {
+        return m_dampingRatio;
+    }
+
+    /**
+     * Sets how close to the target, and how slow, the spring has to be to be considered at rest.
+     *
+     * @param positionThreshold The maximum distance from the target, in pixels
+     * @param velocityThreshold The maximum velocity, in pixels per second
+     */
+    public void setRestThresholds(float positionThreshold, float velocityThreshold)
+    {
+        m_positionThreshold = positionThreshold;
+        m_velocityThreshold = velocityThreshold;
+    }
+
+    @Override
+    public void start(float startPosition, float targetPosition, float velocity)
+    {
+        m_position = startPosition;
+        m_target = targetPosition;
+        m_velocity = velocity;
+        m_lastFrameTimeNanos = NO_FRAME_TIME;
+        m_running = !isAtRest();
+
+        if (!m_running)
+            snapToTarget();
+    }
+
+    @Override
+    public boolean step(long frameTimeNanos)
+    {
+        if (!m_running)
+            return false;
+
+        // The first frame only establishes the time base; the sheet hasn't moved yet
+        if (m_lastFrameTimeNanos == NO_FRAME_TIME)
+        {
+            m_lastFrameTimeNanos = frameTimeNanos;
+            return true;
+        }
+
+        long elapsedNanos = frameTimeNanos - m_lastFrameTimeNanos;
+        m_lastFrameTimeNanos = frameTimeNanos;
+
+        return advance(elapsedNanos / 1000000000f);
+    }
+
+    /**
+     * Advances the spring by a fixed amount of time, independent of frame times.
+     *
+     * @param elapsedSeconds The time to advance by, in seconds
+     * @return True if the spring is still moving, false if it has come to rest at the target
+     */
+    public boolean advance(float elapsedSeconds)
+    {
+        if (!m_running)
+            return false;
+
+        if (elapsedSeconds > 0)
+            solve(elapsedSeconds);
+
+        if (isAtRest())
+        {
+            snapToTarget();
+            m_running = false;
+        }
+
+        return m_running;
+    }
+
+    @Override
+    public float getPosition()
+    {
+        return m_position;
+    }
+
+    @Override
+    public float getVelocity()
+    {
+        return m_velocity;
+    }
+
+    public float getTargetPosition()
+    {
+        return m_target;
+    }
+
+    @Override
+    public boolean isRunning()
+    {
+        return m_running;
+    }
+
+    @Override
+    public void cancel()
+    {
+        m_running = false;
+        m_velocity = 0;
+    }
+
+    private boolean isAtRest()
+    {
+        return Math.abs(m_position - m_target) < m_positionThreshold && Math.abs(m_velocity) < m_velocityThreshold;
+    }
+
+    private void snapToTarget()
+    {
+        m_position = m_target;
+        m_velocity = 0;
+    }
+
+    /**
+     * Solves the damped harmonic oscillator (with unit mass) for the displacement and velocity
+     * after {@code t} seconds, starting from the current displacement and velocity.
+     */
+    private void solve(float t)
+    {
+        double w = m_naturalFrequency;
+        double zeta = m_dampingRatio;
+        double x0 = m_position - m_target;
+        double v0 = m_velocity;
+
+        double displacement;
+        double velocity;
+
+        if (zeta > 1)
+        {
+            // Overdamped
+            double root = w * Math.sqrt(zeta * zeta - 1);
+            double gammaPlus = -zeta * w + root;
+            double gammaMinus = -zeta * w - root;
+            double coefficientB = (gammaMinus * x0 - v0) / (gammaMinus - gammaPlus);
+            double coefficientA = x0 - coefficientB;
+
+            double expMinus = Math.exp(gammaMinus * t);
+            double expPlus = Math.exp(gammaPlus * t);
+            displacement = coefficientA * expMinus + coefficientB * expPlus;
+            velocity = coefficientA * gammaMinus * expMinus + coefficientB * gammaPlus * expPlus;
+        }
+        else if (zeta == 1)
+        {
+            // Critically damped
+            double coefficientA = x0;
+            double coefficientB = v0 + w * x0;
+            double decay = Math.exp(-w * t);
+            displacement = (coefficientA + coefficientB * t) * decay;
+            velocity = (coefficientB - w * (coefficientA + coefficientB * t)) * decay;
+        }
+        else
+        {
+            // Underdamped
+            double dampedFrequency = w * Math.sqrt(1 - zeta * zeta);
+            double cosCoefficient = x0;
+            double sinCoefficient = (zeta * w * x0 + v0) / dampedFrequency;
+            double decay = Math.exp(-zeta * w * t);
+            double cos = Math.cos(dampedFrequency * t);
+            double sin = Math.sin(dampedFrequency * t);
+
+            displacement = decay * (cosCoefficient * cos + sinCoefficient * sin);
+            velocity = -zeta * w * displacement +
+                       decay * dampedFrequency * (sinCoefficient * cos - cosCoefficient * sin);
+        }
+
+        m_position = (float) (m_target + displacement);
+        m_velocity = (float) velocity;
+    }
+}
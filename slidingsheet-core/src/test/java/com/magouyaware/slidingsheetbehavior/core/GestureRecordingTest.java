@@ -0,0 +1,50 @@
+package com.magouyaware.slidingsheetbehavior.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class GestureRecordingTest
+{
+    @Test
+    public void roundTripsThroughBinaryFormat() throws Exception
+    {
+        GestureRecording recording = new GestureRecording(4);
+        recording.record(GestureRecording.ACTION_DOWN, 1000, 540.4f, 1500.6f);
+        for (int i = 1; i <= 100; i++)
+            recording.record(GestureRecording.ACTION_MOVE, 1000 + i * 8, 540, 1500 - i * 5);
+        recording.record(GestureRecording.ACTION_UP, 1900, 540, 1000);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recording.write(out);
+
+        // Header plus 7 bytes per event
+        assertEquals(10 + 7 * recording.size(), out.size());
+
+        GestureRecording copy = GestureRecording.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(4, copy.getEdge());
+        assertEquals(recording.size(), copy.size());
+
+        for (int i = 0; i < recording.size(); i++)
+        {
+            assertEquals(recording.getAction(i), copy.getAction(i));
+            assertEquals(recording.getTimeMillis(i), copy.getTimeMillis(i));
+            assertEquals(recording.getX(i), copy.getX(i));
+            assertEquals(recording.getY(i), copy.getY(i));
+        }
+
+        assertEquals(540, copy.getX(0));
+        assertEquals(1501, copy.getY(0));
+        assertEquals(900, copy.getTimeMillis(copy.size() - 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherData() throws Exception
+    {
+        GestureRecording.read(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 }));
+    }
+}
@@ -0,0 +1,74 @@
+package com.magouyaware.slidingsheetbehavior.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OffsetBindingTableTest
+{
+    @Test
+    public void mapsOffsetRangeOntoValueRange() throws Exception
+    {
+        OffsetBindingTable table = new OffsetBindingTable();
+        int index = table.add(7, 0, 1, 0, 0.6f);
+
+        assertEquals(7, table.getProperty(index));
+        assertEquals(0, table.getValue(index, table.getFraction(index, 0)), 0);
+        assertEquals(0.3f, table.getValue(index, table.getFraction(index, 0.5f)), 0.0001f);
+        assertEquals(0.6f, table.getValue(index, table.getFraction(index, 1)), 0.0001f);
+    }
+
+    @Test
+    public void clampsOutsideOfOffsetRange() throws Exception
+    {
+        OffsetBindingTable table = new OffsetBindingTable();
+        int index = table.add(1, -1, 0, 100, 0);
+
+        assertEquals(0, table.getFraction(index, -1), 0);
+        assertEquals(1, table.getFraction(index, 0.5f), 0);
+        assertEquals(50, table.getValue(index, table.getFraction(index, -0.5f)), 0.0001f);
+        assertEquals(0, table.getValue(index, table.getFraction(index, 1)), 0);
+    }
+
+    @Test
+    public void supportsReversedOffsetRanges() throws Exception
+    {
+        OffsetBindingTable table = new OffsetBindingTable();
+        int index = table.add(1, 1, 0.5f, 0, 1);
+
+        assertEquals(0, table.getFraction(index, 1), 0);
+        assertEquals(0.5f, table.getFraction(index, 0.75f), 0.0001f);
+        assertEquals(1, table.getFraction(index, 0), 0);
+    }
+
+    @Test
+    public void growsAndKeepsOrderWhenRemoving() throws Exception
+    {
+        OffsetBindingTable table = new OffsetBindingTable();
+        for (int i = 0; i < 10; i++)
+            table.add(i, 0, 1, i, i + 1);
+
+        assertEquals(10, table.size());
+
+        table.remove(3);
+        assertEquals(9, table.size());
+        assertEquals(4, table.getProperty(3));
+        assertEquals(4, table.getValue(3, 0), 0);
+        assertEquals(9, table.getProperty(8));
+
+        table.clear();
+        assertEquals(0, table.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyOffsetRange() throws Exception
+    {
+        new OffsetBindingTable().add(1, 0.5f, 0.5f, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOffsetsOutsideOfSlideRange() throws Exception
+    {
+        new OffsetBindingTable().add(1, 0, 2, 0, 1);
+    }
+}
@@ -0,0 +1,218 @@
+package com.magouyaware.slidingsheetbehavior.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SheetGeometryTest
+{
+    private static final int PARENT_SIZE = 1000;
+    private static final int CHILD_SIZE = 800;
+    private static final int PEEK_SIZE = 100;
+
+    private static SheetGeometry create(boolean reversed)
+    {
+        SheetGeometry geometry = new SheetGeometry();
+        geometry.setReversed(reversed);
+        geometry.update(PARENT_SIZE, CHILD_SIZE, PEEK_SIZE);
+        return geometry;
+    }
+
+    @Test
+    public void resolvesPositionsForBottomAndRightEdges() throws Exception
+    {
+        SheetGeometry geometry = create(false);
+
+        assertEquals(PARENT_SIZE, geometry.getHiddenPosition());
+        assertEquals(PARENT_SIZE - PEEK_SIZE, geometry.getCollapsedPosition());
+        assertEquals(PARENT_SIZE - CHILD_SIZE, geometry.getExpandedPosition());
+    }
+
+    @Test
+    public void resolvesPositionsForTopAndLeftEdges() throws Exception
+    {
+        SheetGeometry geometry = create(true);
+
+        assertEquals(-CHILD_SIZE, geometry.getHiddenPosition());
+        assertEquals(PEEK_SIZE - CHILD_SIZE, geometry.getCollapsedPosition());
+        assertEquals(0, geometry.getExpandedPosition());
+    }
+
+    @Test
+    public void onlyRecalculatesWhenInputsChange() throws Exception
+    {
+        SheetGeometry geometry = create(false);
+
+        assertFalse(geometry.update(PARENT_SIZE, CHILD_SIZE, PEEK_SIZE));
+        assertTrue(geometry.update(PARENT_SIZE, CHILD_SIZE, PEEK_SIZE * 2));
+
+        geometry.setReversed(true);
+        assertFalse(geometry.isValid());
+        assertTrue(geometry.update(PARENT_SIZE, CHILD_SIZE, PEEK_SIZE * 2));
+    }
+
+    @Test
+    public void slideOffsetCoversFullRange() throws Exception
+    {
+        for (boolean reversed : new boolean[] { false, true })
+        {
+            SheetGeometry geometry = create(reversed);
+
+            assertEquals(-1f, geometry.calculateSlideOffset(geometry.getHiddenPosition()), 0);
+            assertEquals(0f, geometry.calculateSlideOffset(geometry.getCollapsedPosition()), 0);
+            assertEquals(1f, geometry.calculateSlideOffset(geometry.getExpandedPosition()), 0);
+
+            int halfway = (geometry.getCollapsedPosition() + geometry.getExpandedPosition()) / 2;
+            assertEquals(0.5f, geometry.calculateSlideOffset(halfway), 0.01f);
+        }
+    }
+
+    @Test
+    public void clampsToHiddenPositionOnlyWhenHideable() throws Exception
+    {
+        SheetGeometry geometry = create(false);
+
+        assertEquals(geometry.getCollapsedPosition(), geometry.clampPosition(PARENT_SIZE * 2, false));
+        assertEquals(geometry.getHiddenPosition(), geometry.clampPosition(PARENT_SIZE * 2, true));
+        assertEquals(geometry.getExpandedPosition(), geometry.clampPosition(-PARENT_SIZE, true));
+
+        geometry = create(true);
+
+        assertEquals(geometry.getCollapsedPosition(), geometry.clampPosition(-PARENT_SIZE * 2, false));
+        assertEquals(geometry.getHiddenPosition(), geometry.clampPosition(-PARENT_SIZE * 2, true));
+        assertEquals(geometry.getExpandedPosition(), geometry.clampPosition(PARENT_SIZE, true));
+    }
+
+    @Test
+    public void clampsSubPixelPositions()
+    {
+        SheetGeometry geometry = create(false);
+        float expanded = geometry.getExpandedPosition();
+        float collapsed = geometry.getCollapsedPosition();
+
+        assertEquals(collapsed - 10.25f, geometry.clampPosition(collapsed - 10.25f, false), 0f);
+        assertEquals(collapsed, geometry.clampPosition(collapsed + 0.5f, false), 0f);
+        assertEquals(expanded, geometry.clampPosition(expanded - 0.5f, true), 0f);
+    }
+
+    @Test
+    public void hidesOnlyWhenFlungTowardsHiddenFromPeekArea() throws Exception
+    {
+        SheetGeometry geometry = create(false);
+        int collapsed = geometry.getCollapsedPosition();
+
+        assertFalse(geometry.shouldHide(collapsed, 5000, false, false));
+        assertFalse(geometry.shouldHide(collapsed, -5000, true, false));
+        assertFalse(geometry.shouldHide(geometry.getExpandedPosition(), 5000, true, false));
+        assertTrue(geometry.shouldHide(collapsed, 5000, true, false));
+        assertTrue(geometry.shouldHide(geometry.getExpandedPosition(), 5000, true, true));
+    }
+
+    @Test
+    public void resolvesDetentsFromCollapsedTowardsExpanded() throws Exception
+    {
+        for (boolean reversed : new boolean[] { false, true })
+        {
+            SheetGeometry geometry = new SheetGeometry();
+            geometry.setReversed(reversed);
+            geometry.setDetentFractions(new float[] { 0.5f, 0.25f, 0.5f, 0.95f, 0.05f });
+            geometry.update(PARENT_SIZE, CHILD_SIZE, PEEK_SIZE);
+
+            // Duplicates and detents outside of the collapsed to expanded range are dropped
+            assertEquals(2, geometry.getDetentCount());
+
+            int quarter = reversed ? 250 - CHILD_SIZE : PARENT_SIZE - 250;
+            int half = reversed ? 500 - CHILD_SIZE : PARENT_SIZE - 500;
+            assertEquals(quarter, geometry.getDetentPosition(0));
+            assertEquals(half, geometry.getDetentPosition(1));
+        }
+    }
+
+    @Test
+    public void releaseStopFollowsVelocity() throws Exception
+    {
+        SheetGeometry geometry = create(false);
+        geometry.setDetentSizes(new int[] { 300, 600 });
+        geometry.update(PARENT_SIZE, CHILD_SIZE, PEEK_SIZE);
+
+        // Collapsed at 900, detents at 700 and 400, expanded at 200
+        assertEquals(0, geometry.findReleaseStop(800, -1000));
+        assertEquals(SheetGeometry.STOP_COLLAPSED, geometry.findReleaseStop(800, 1000));
+        assertEquals(1, geometry.findReleaseStop(700, -1000));
+        assertEquals(SheetGeometry.STOP_EXPANDED, geometry.findReleaseStop(300, -1000));
+        assertEquals(SheetGeometry.STOP_EXPANDED, geometry.findReleaseStop(100, -1000));
+        assertEquals(SheetGeometry.STOP_COLLAPSED, geometry.findReleaseStop(950, 1000));
+
+        // Not moving: closest stop
+        assertEquals(1, geometry.findReleaseStop(450, 0));
+        assertEquals(0, geometry.findReleaseStop(650, 0));
+        assertEquals(0, geometry.findReleaseStop(700, 0));
+        assertEquals(SheetGeometry.STOP_COLLAPSED, geometry.findReleaseStop(850, 0));
+
+        assertEquals(400, geometry.getStopPosition(1));
+        assertEquals(900, geometry.getStopPosition(SheetGeometry.STOP_COLLAPSED));
+    }
+
+    @Test
+    public void releaseStopFollowsVelocityWhenReversed() throws Exception
+    {
+        SheetGeometry geometry = create(true);
+        geometry.setDetentSizes(new int[] { 400 });
+        geometry.update(PARENT_SIZE, CHILD_SIZE, PEEK_SIZE);
+
+        // Collapsed at -700, detent at -400, expanded at 0
+        assertEquals(0, geometry.findReleaseStop(-600, 1000));
+        assertEquals(SheetGeometry.STOP_EXPANDED, geometry.findReleaseStop(-300, 1000));
+        assertEquals(SheetGeometry.STOP_COLLAPSED, geometry.findReleaseStop(-500, -1000));
+        assertEquals(0, geometry.findReleaseStop(-350, 0));
+    }
+
+    @Test
+    public void releaseStopWithoutDetents() throws Exception
+    {
+        SheetGeometry geometry = create(false);
+
+        assertEquals(SheetGeometry.STOP_EXPANDED, geometry.findReleaseStop(500, -1));
+        assertEquals(SheetGeometry.STOP_COLLAPSED, geometry.findReleaseStop(500, 1));
+    }
+
+    @Test
+    public void nearestStopToPredictedRestPosition() throws Exception
+    {
+        SheetGeometry geometry = create(false);
+        geometry.setDetentSizes(new int[] { 300, 600 });
+        geometry.update(PARENT_SIZE, CHILD_SIZE, PEEK_SIZE);
+
+        // Hidden at 1000, collapsed at 900, detents at 700 and 400, expanded at 200
+        assertEquals(SheetGeometry.STOP_EXPANDED, geometry.findNearestStop(-500, true, false));
+        assertEquals(SheetGeometry.STOP_EXPANDED, geometry.findNearestStop(299.5f, true, false));
+        assertEquals(1, geometry.findNearestStop(300.5f, true, false));
+        assertEquals(0, geometry.findNearestStop(640, true, false));
+        assertEquals(SheetGeometry.STOP_COLLAPSED, geometry.findNearestStop(949, true, false));
+        assertEquals(SheetGeometry.STOP_HIDDEN, geometry.findNearestStop(951, true, false));
+        assertEquals(SheetGeometry.STOP_HIDDEN, geometry.findNearestStop(5000, true, false));
+
+        // Never hides unless hideable
+        assertEquals(SheetGeometry.STOP_COLLAPSED, geometry.findNearestStop(5000, false, false));
+
+        // Skipping collapsed splits the difference between hidden and the closest detent
+        assertEquals(0, geometry.findNearestStop(840, true, true));
+        assertEquals(SheetGeometry.STOP_HIDDEN, geometry.findNearestStop(860, true, true));
+
+        assertEquals(1000, geometry.getStopPosition(SheetGeometry.STOP_HIDDEN));
+    }
+
+    @Test
+    public void nearestStopWhenReversed() throws Exception
+    {
+        SheetGeometry geometry = create(true);
+
+        // Hidden at -800, collapsed at -700, expanded at 0
+        assertEquals(SheetGeometry.STOP_EXPANDED, geometry.findNearestStop(400, true, false));
+        assertEquals(SheetGeometry.STOP_EXPANDED, geometry.findNearestStop(-340, true, false));
+        assertEquals(SheetGeometry.STOP_COLLAPSED, geometry.findNearestStop(-740, true, false));
+        assertEquals(SheetGeometry.STOP_HIDDEN, geometry.findNearestStop(-760, true, false));
+        assertEquals(SheetGeometry.STOP_HIDDEN, geometry.findNearestStop(-500, true, true));
+        assertEquals(SheetGeometry.STOP_EXPANDED, geometry.findNearestStop(-300, true, true));
+    }
+}
@@ -0,0 +1,103 @@
+package com.magouyaware.slidingsheetbehavior.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TouchInterceptPolicyTest
+{
+    private TouchInterceptPolicy m_policy;
+    private CountingTarget m_target;
+
+    @Before
+    public void setUp()
+    {
+        m_policy = new TouchInterceptPolicy();
+        m_policy.setVertical(true);
+        m_policy.setTouchSlop(24);
+        m_policy.onTouchDown(500, 1500);
+
+        m_target = new CountingTarget(0, 1200, 1080, 1920);
+    }
+
+    @Test
+    public void doesNotQueryTargetWhenIgnoringEvents()
+    {
+        assertFalse(m_policy.shouldIntercept(m_target, true, 500, 1400, true, false));
+        assertFalse(m_policy.shouldIntercept(m_target, true, 500, 1400, false, true));
+        assertFalse(m_policy.shouldIntercept(m_target, false, 500, 1400, false, false));
+        assertEquals(0, m_target.queries);
+    }
+
+    @Test
+    public void doesNotQueryTargetBeforeTouchSlop()
+    {
+        assertFalse(m_policy.shouldIntercept(m_target, true, 500, 1490, false, false));
+        assertEquals(0, m_target.queries);
+    }
+
+    @Test
+    public void interceptsOutsideOfScrollingContentWithoutScrollChecks()
+    {
+        m_policy.onTouchDown(500, 1100);
+
+        assertTrue(m_policy.shouldIntercept(m_target, true, 500, 1000, false, false));
+        assertEquals(1, m_target.queries);
+    }
+
+    @Test
+    public void leavesScrollableContentAlone()
+    {
+        m_target.canScroll = true;
+        assertFalse(m_policy.shouldIntercept(m_target, true, 500, 1400, false, false));
+
+        m_target.canScroll = false;
+        assertTrue(m_policy.shouldIntercept(m_target, true, 500, 1400, false, false));
+    }
+
+    @Test
+    public void requiresScrollTarget()
+    {
+        assertFalse(m_policy.shouldIntercept(null, true, 500, 1400, false, false));
+    }
+
+    private static final class CountingTarget implements TouchInterceptPolicy.IScrollTarget
+    {
+        private final int m_left;
+        private final int m_top;
+        private final int m_right;
+        private final int m_bottom;
+        boolean canScroll;
+        int queries;
+
+        CountingTarget(int left, int top, int right, int bottom)
+        {
+            m_left = left;
+            m_top = top;
+            m_right = right;
+            m_bottom = bottom;
+        }
+
+        @Override
+        public boolean containsPoint(int x, int y)
+        {
+            queries++;
+            return x >= m_left && x < m_right && y >= m_top && y < m_bottom;
+        }
+
+        @Override
+        public boolean canScrollVertically(int direction)
+        {
+            queries++;
+            return canScroll;
+        }
+
+        @Override
+        public boolean canScrollHorizontally(int direction)
+        {
+            queries++;
+            return false;
+        }
+    }
+}
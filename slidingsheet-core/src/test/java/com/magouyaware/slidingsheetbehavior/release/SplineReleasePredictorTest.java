@@ -0,0 +1,76 @@
+package com.magouyaware.slidingsheetbehavior.release;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SplineReleasePredictorTest
+{
+    private static final float DENSITY = 2.625f;
+
+    @Test
+    public void restsWhereReleasedWithoutVelocity() throws Exception
+    {
+        SplineReleasePredictor predictor = new SplineReleasePredictor(DENSITY, SplineReleasePredictor.DEFAULT_FRICTION);
+        ReleasePrediction prediction = new ReleasePrediction();
+
+        predictor.predict(640, 0, prediction);
+        assertEquals(640, prediction.getRestPosition(), 0);
+    }
+
+    @Test
+    public void travelsInTheDirectionOfTheFling() throws Exception
+    {
+        SplineReleasePredictor predictor = new SplineReleasePredictor(DENSITY, SplineReleasePredictor.DEFAULT_FRICTION);
+        ReleasePrediction prediction = new ReleasePrediction();
+
+        predictor.predict(1000, 3000, prediction);
+        float forward = prediction.getRestPosition() - 1000;
+
+        predictor.predict(1000, -3000, prediction);
+        float backward = 1000 - prediction.getRestPosition();
+
+        assertTrue("Expected forward travel: " + forward, forward > 0);
+        assertEquals(forward, backward, 0.001f);
+    }
+
+    @Test
+    public void fasterFlingsTravelFurther() throws Exception
+    {
+        SplineReleasePredictor predictor = new SplineReleasePredictor(DENSITY, SplineReleasePredictor.DEFAULT_FRICTION);
+        ReleasePrediction prediction = new ReleasePrediction();
+
+        float lastDistance = 0;
+        for (float velocity = 500; velocity <= 8000; velocity *= 2)
+        {
+            predictor.predict(0, velocity, prediction);
+            assertTrue(prediction.getRestPosition() > lastDistance);
+
+            lastDistance = prediction.getRestPosition();
+        }
+
+        // Travel grows faster than linearly with velocity, unlike a fixed friction projection
+        predictor.predict(0, 1000, prediction);
+        float slow = prediction.getRestPosition();
+        predictor.predict(0, 4000, prediction);
+        assertTrue(prediction.getRestPosition() > 4 * slow);
+    }
+
+    @Test
+    public void higherFrictionStopsSooner() throws Exception
+    {
+        ReleasePrediction prediction = new ReleasePrediction();
+
+        new SplineReleasePredictor(DENSITY, SplineReleasePredictor.DEFAULT_FRICTION).predict(0, 4000, prediction);
+        float normal = prediction.getRestPosition();
+
+        new SplineReleasePredictor(DENSITY, SplineReleasePredictor.DEFAULT_FRICTION * 4).predict(0, 4000, prediction);
+        assertTrue(prediction.getRestPosition() < normal);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidFriction() throws Exception
+    {
+        new SplineReleasePredictor(DENSITY, 0);
+    }
+}
@@ -0,0 +1,88 @@
+package com.magouyaware.slidingsheetbehavior.settle;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpringSettleEngineTest
+{
+    private static final float FRAME_SECONDS = 1 / 60f;
+    private static final int MAX_FRAMES = 600;
+
+    @Test
+    public void criticallyDampedSpringConvergesWithoutOvershoot() throws Exception
+    {
+        SpringSettleEngine engine = new SpringSettleEngine();
+        engine.start(1000, 0, 0);
+
+        int frames = 0;
+        while (engine.advance(FRAME_SECONDS) && frames++ < MAX_FRAMES)
+            assertTrue("Overshot target: " + engine.getPosition(), engine.getPosition() >= 0);
+
+        assertFalse(engine.isRunning());
+        assertEquals(0, engine.getPosition(), 0);
+        assertEquals(0, engine.getVelocity(), 0);
+    }
+
+    @Test
+    public void underdampedSpringOvershootsAndConverges() throws Exception
+    {
+        SpringSettleEngine engine = new SpringSettleEngine(SpringSettleEngine.STIFFNESS_MEDIUM, 0.5f);
+        engine.start(1000, 0, 0);
+
+        float minPosition = Float.MAX_VALUE;
+        int frames = 0;
+        while (engine.advance(FRAME_SECONDS) && frames++ < MAX_FRAMES)
+            minPosition = Math.min(minPosition, engine.getPosition());
+
+        assertTrue("Expected overshoot, lowest position was " + minPosition, minPosition < 0);
+        assertFalse(engine.isRunning());
+        assertEquals(0, engine.getPosition(), 0);
+    }
+
+    @Test
+    public void releaseVelocityCarriesIntoSettle() throws Exception
+    {
+        SpringSettleEngine engine = new SpringSettleEngine();
+        engine.start(500, 0, -4000);
+        engine.advance(FRAME_SECONDS);
+
+        // A still spring would have barely moved after one frame; the fling keeps the sheet going
+        assertTrue(engine.getPosition() < 500 - 4000 * FRAME_SECONDS / 2);
+        assertTrue(engine.getVelocity() < 0);
+    }
+
+    @Test
+    public void firstFrameEstablishesTimeBase() throws Exception
+    {
+        SpringSettleEngine engine = new SpringSettleEngine();
+        engine.start(100, 0, 0);
+
+        assertTrue(engine.step(5000000000L));
+        assertEquals(100, engine.getPosition(), 0);
+
+        assertTrue(engine.step(5016666667L));
+        assertTrue(engine.getPosition() < 100);
+    }
+
+    @Test
+    public void startingAtRestDoesNotRun() throws Exception
+    {
+        SpringSettleEngine engine = new SpringSettleEngine();
+        engine.start(0.25f, 0, 0);
+
+        assertFalse(engine.isRunning());
+        assertFalse(engine.step(0));
+        assertEquals(0, engine.getPosition(), 0);
+    }
+
+    @Test
+    public void longFramesRemainStable() throws Exception
+    {
+        SpringSettleEngine engine = new SpringSettleEngine(SpringSettleEngine.STIFFNESS_MEDIUM, 0.2f);
+        engine.start(1000, 0, 8000);
+        engine.advance(0.5f);
+
+        assertTrue(Math.abs(engine.getPosition()) < 1000);
+    }
+}
@@ -0,0 +1,178 @@
+package com.magouyaware.slidingsheetbehavior.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A recorded stream of single pointer touch events, stored in a compact binary format so that
+ * gestures can be checked in and replayed against the touch handling code.  This is a test
+ * fixture: the benchmarks and the tests of both modules use it, but it isn't part of the library.
+ *
+ * <p>Each event takes 7 bytes: the action, the time since the previous event in milliseconds, and
+ * the coordinates rounded to whole pixels.  Actions use the same values as
+ * {@code MotionEvent.getActionMasked()}.</p>
+ */
+public final class GestureRecording
+{
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_UP = 1;
+    public static final int ACTION_MOVE = 2;
+    public static final int ACTION_CANCEL = 3;
+
+    private static final int MAGIC = 0x53534752; // "SSGR"
+    private static final int VERSION = 1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int m_edge;
+    private byte[] m_actions = new byte[INITIAL_CAPACITY];
+    private long[] m_times = new long[INITIAL_CAPACITY];
+    private short[] m_x = new short[INITIAL_CAPACITY];
+    private short[] m_y = new short[INITIAL_CAPACITY];
+    private int m_count;
+
+    /**
+     * @param edge The edge of the sheet the gesture was recorded on, as returned by
+     *             {@code SlideEdge.getIntValue()}
+     */
+    public GestureRecording(int edge)
+    {
+        m_edge = edge;
+    }
+
+    /**
+     * Adds an event to the end of the recording.
+     *
+     * @param action          The masked action of the event
+     * @param eventTimeMillis The time of the event, in milliseconds.  Only the differences between
+     *                        events are kept.
+     * @param x               The x coordinate of the event
+     * @param y               The y coordinate of the event
+     */
+    public void record(int action, long eventTimeMillis, float x, float y)
+    {
+        if (action < ACTION_DOWN || action > ACTION_CANCEL)
+            throw new IllegalArgumentException("Unsupported action: " + action);
+
+        if (m_count == m_actions.length)
+            grow();
+
+        m_actions[m_count] = (byte) action;
+        m_times[m_count] = eventTimeMillis;
+        m_x[m_count] = toShort(x);
+        m_y[m_count] = toShort(y);
+        m_count++;
+    }
+
+    public int getEdge()
+    {
+        return m_edge;
+    }
+
+    public int size()
+    {
+        return m_count;
+    }
+
+    public int getAction(int index)
+    {
+        return m_actions[checkIndex(index)];
+    }
+
+    /**
+     * @return The time of the event, in milliseconds since the first event in the recording
+     */
+    public long getTimeMillis(int index)
+    {
+        return m_times[checkIndex(index)] - m_times[0];
+    }
+
+    public int getX(int index)
+    {
+        return m_x[checkIndex(index)];
+    }
+
+    public int getY(int index)
+    {
+        return m_y[checkIndex(index)];
+    }
+
+    public void write(OutputStream stream) throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(m_edge);
+        out.writeInt(m_count);
+
+        for (int i = 0; i < m_count; i++)
+        {
+            long delta = i == 0 ? 0 : m_times[i] - m_times[i - 1];
+            out.writeByte(m_actions[i]);
+            out.writeShort((int) Math.min(delta, Short.MAX_VALUE));
+            out.writeShort(m_x[i]);
+            out.writeShort(m_y[i]);
+        }
+
+        out.flush();
+    }
+
+    public static GestureRecording read(InputStream stream) throws IOException
+    {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not a gesture recording");
+
+        int version = in.readUnsignedByte();
+        if (version != VERSION)
+            throw new IOException("Unsupported gesture recording version: " + version);
+
+        GestureRecording recording = new GestureRecording(in.readUnsignedByte());
+        int count = in.readInt();
+        long time = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            int action = in.readUnsignedByte();
+            time += in.readShort();
+            recording.record(action, time, in.readShort(), in.readShort());
+        }
+
+        return recording;
+    }
+
+    private int checkIndex(int index)
+    {
+        if (index < 0 || index >= m_count)
+            throw new IndexOutOfBoundsException("Invalid event index: " + index);
+
+        return index;
+    }
+
+    private void grow()
+    {
+        int capacity = m_actions.length * 2;
+        byte[] actions = new byte[capacity];
+        long[] times = new long[capacity];
+        short[] x = new short[capacity];
+        short[] y = new short[capacity];
+
+        System.arraycopy(m_actions, 0, actions, 0, m_count);
+        System.arraycopy(m_times, 0, times, 0, m_count);
+        System.arraycopy(m_x, 0, x, 0, m_count);
+        System.arraycopy(m_y, 0, y, 0, m_count);
+
+        m_actions = actions;
+        m_times = times;
+        m_x = x;
+        m_y = y;
+    }
+
+    private static short toShort(float value)
+    {
+        int rounded = Math.round(value);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, rounded));
+    }
+}
@@ -0,0 +1,102 @@
+package com.magouyaware.slidingsheetbehavior.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Generates the sample gesture recordings in {@code src/testFixtures/resources/gestures}.  The gestures
+ * are synthesized from the touch panel sample rate and typical finger speeds, so the samples are
+ * reproducible.  Recordings of real devices can be dropped in next to them using the same format.
+ *
+ * <p>Usage: {@code GestureRecordingGenerator <output directory>}</p>
+ */
+public final class GestureRecordingGenerator
+{
+    public static final String[] GESTURES = { "tap", "slowDrag", "fling", "nestedScrollDrag" };
+
+    // A 120Hz touch panel
+    private static final int SAMPLE_INTERVAL_MILLIS = 8;
+
+    private GestureRecordingGenerator() {}
+
+    public static void main(String[] args) throws IOException
+    {
+        File directory = new File(args.length > 0 ? args[0] : "src/testFixtures/resources/gestures");
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Unable to create " + directory);
+
+        for (int edge = SampleScreen.EDGE_LEFT; edge <= SampleScreen.EDGE_BOTTOM; edge++)
+        {
+            for (String gesture : GESTURES)
+            {
+                File file = new File(directory, getFileName(edge, gesture));
+                OutputStream out = new FileOutputStream(file);
+                try
+                {
+                    generate(edge, gesture).write(out);
+                }
+                finally
+                {
+                    out.close();
+                }
+            }
+        }
+    }
+
+    public static String getFileName(int edge, String gesture)
+    {
+        return SampleScreen.EDGE_NAMES[edge - 1] + "-" + gesture + ".ssgr";
+    }
+
+    public static GestureRecording generate(int edge, String gesture)
+    {
+        GestureRecording recording = new GestureRecording(edge);
+        int[] handle = SampleScreen.getHandleCenter(edge);
+        int[] content = SampleScreen.getContentBounds(edge);
+        int closing = SampleScreen.getClosingDirection(edge);
+
+        if ("tap".equals(gesture))
+            addStroke(recording, edge, handle[0], handle[1], 1, 0, 3, 0);
+        else if ("slowDrag".equals(gesture))
+            addStroke(recording, edge, handle[0], handle[1], closing * 6, 0, 60, 0);
+        else if ("fling".equals(gesture))
+            addStroke(recording, edge, handle[0], handle[1], closing * 10, closing * 5, 12, 0);
+        else if ("nestedScrollDrag".equals(gesture))
+            addStroke(recording, edge, (content[0] + content[2]) / 2, (content[1] + content[3]) / 2, -closing * 10, 0, 40, 0);
+        else
+            throw new IllegalArgumentException("Unknown gesture: " + gesture);
+
+        return recording;
+    }
+
+    /**
+     * Adds a single pointer stroke: a down event, {@code moves} move events, then an up event.
+     *
+     * @param step         The initial distance moved per sample along the slide axis
+     * @param acceleration The change in distance moved per sample
+     */
+    private static void addStroke(GestureRecording recording, int edge, int startX, int startY, int step, int acceleration, int moves, long startTime)
+    {
+        boolean vertical = SampleScreen.isVertical(edge);
+        float along = 0;
+        long time = startTime;
+
+        recording.record(GestureRecording.ACTION_DOWN, time, startX, startY);
+        for (int i = 0; i < moves; i++)
+        {
+            time += SAMPLE_INTERVAL_MILLIS;
+            along += step + acceleration * i;
+
+            // Fingers never move in a perfectly straight line
+            float across = (float) (Math.sin(i * 0.3) * 4);
+            float x = startX + (vertical ? across : along);
+            float y = startY + (vertical ? along : across);
+            recording.record(GestureRecording.ACTION_MOVE, time, x, y);
+        }
+
+        int last = recording.size() - 1;
+        recording.record(GestureRecording.ACTION_UP, time + SAMPLE_INTERVAL_MILLIS, recording.getX(last), recording.getY(last));
+    }
+}
@@ -0,0 +1,112 @@
+package com.magouyaware.slidingsheetbehavior.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The screen layout that the sample gesture recordings were made against: a 1080x1920 parent with
+ * an expanded sheet on one edge, a 100 pixel drag handle, and nested scrolling content filling
+ * the rest of the sheet.  Edges use the values from {@code SlideEdge.getIntValue()}.
+ */
+public final class SampleScreen
+{
+    public static final int EDGE_LEFT = 1;
+    public static final int EDGE_RIGHT = 2;
+    public static final int EDGE_TOP = 3;
+    public static final int EDGE_BOTTOM = 4;
+
+    public static final String[] EDGE_NAMES = { "left", "right", "top", "bottom" };
+
+    public static final int PARENT_WIDTH = 1080;
+    public static final int PARENT_HEIGHT = 1920;
+    public static final int SHEET_SIZE = 800;
+    public static final int HANDLE_SIZE = 100;
+
+    private SampleScreen() {}
+
+    public static int edgeFromName(String name)
+    {
+        for (int i = 0; i < EDGE_NAMES.length; i++)
+        {
+            if (EDGE_NAMES[i].equalsIgnoreCase(name))
+                return i + 1;
+        }
+
+        throw new IllegalArgumentException("Unknown edge: " + name);
+    }
+
+    public static boolean isVertical(int edge)
+    {
+        return edge == EDGE_TOP || edge == EDGE_BOTTOM;
+    }
+
+    /**
+     * @return The bounds of the nested scrolling content as {left, top, right, bottom}
+     */
+    public static int[] getContentBounds(int edge)
+    {
+        switch (edge)
+        {
+            case EDGE_LEFT:
+                return new int[] { 0, 0, SHEET_SIZE - HANDLE_SIZE, PARENT_HEIGHT };
+            case EDGE_RIGHT:
+                return new int[] { PARENT_WIDTH - SHEET_SIZE + HANDLE_SIZE, 0, PARENT_WIDTH, PARENT_HEIGHT };
+            case EDGE_TOP:
+                return new int[] { 0, 0, PARENT_WIDTH, SHEET_SIZE - HANDLE_SIZE };
+            case EDGE_BOTTOM:
+                return new int[] { 0, PARENT_HEIGHT - SHEET_SIZE + HANDLE_SIZE, PARENT_WIDTH, PARENT_HEIGHT };
+            default:
+                throw new IllegalArgumentException("Invalid edge: " + edge);
+        }
+    }
+
+    /**
+     * @return The center of the drag handle as {x, y}
+     */
+    public static int[] getHandleCenter(int edge)
+    {
+        switch (edge)
+        {
+            case EDGE_LEFT:
+                return new int[] { SHEET_SIZE - HANDLE_SIZE / 2, PARENT_HEIGHT / 2 };
+            case EDGE_RIGHT:
+                return new int[] { PARENT_WIDTH - SHEET_SIZE + HANDLE_SIZE / 2, PARENT_HEIGHT / 2 };
+            case EDGE_TOP:
+                return new int[] { PARENT_WIDTH / 2, SHEET_SIZE - HANDLE_SIZE / 2 };
+            case EDGE_BOTTOM:
+                return new int[] { PARENT_WIDTH / 2, PARENT_HEIGHT - SHEET_SIZE + HANDLE_SIZE / 2 };
+            default:
+                throw new IllegalArgumentException("Invalid edge: " + edge);
+        }
+    }
+
+    /**
+     * @return The direction along the slide axis that closes the sheet: +1 or -1
+     */
+    public static int getClosingDirection(int edge)
+    {
+        return edge == EDGE_LEFT || edge == EDGE_TOP ? -1 : 1;
+    }
+
+    /**
+     * Loads one of the sample recordings from the {@code gestures} resources
+     *
+     * @param gesture One of {@link GestureRecordingGenerator#GESTURES}
+     */
+    public static GestureRecording loadGesture(int edge, String gesture) throws IOException
+    {
+        String fileName = GestureRecordingGenerator.getFileName(edge, gesture);
+        InputStream in = SampleScreen.class.getResourceAsStream("/gestures/" + fileName);
+        if (in == null)
+            throw new IOException("Missing gesture recording: " + fileName);
+
+        try
+        {
+            return GestureRecording.read(in);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}
@@ -2,8 +2,6 @@ package com.magouyaware.slidingsheetbehavior.behavior;
 
 import android.os.Parcel;
 import android.os.Parcelable;
-import android.support.v4.os.ParcelableCompat;
-import android.support.v4.os.ParcelableCompatCreatorCallbacks;
 import android.support.v4.view.AbsSavedState;
 
 import com.magouyaware.slidingsheetbehavior.enums.SlideState;
@@ -11,6 +9,7 @@ import com.magouyaware.slidingsheetbehavior.enums.SlideState;
 public class SavedState extends AbsSavedState
 {
     final SlideState state;
+    final int detentIndex;
 
     public SavedState(Parcel source)
     {
@@ -21,12 +20,19 @@ public class SavedState extends AbsSavedState
     {
         super(source, loader);
         state = SlideState.fromIntValue(source.readInt());
+        detentIndex = source.readInt();
     }
 
     public SavedState(Parcelable superState, SlideState state)
+    {
+        this(superState, state, SlidingSheetBehavior.NO_DETENT);
+    }
+
+    public SavedState(Parcelable superState, SlideState state, int detentIndex)
     {
         super(superState);
         this.state = state;
+        this.detentIndex = detentIndex;
     }
 
     @Override
@@ -34,9 +40,10 @@ public class SavedState extends AbsSavedState
     {
         super.writeToParcel(out, flags);
         out.writeInt(state.getIntValue());
+        out.writeInt(detentIndex);
     }
 
-    public static final Creator<SavedState> CREATOR = ParcelableCompat.newCreator(new ParcelableCompatCreatorCallbacks<SavedState>()
+    public static final Creator<SavedState> CREATOR = new Parcelable.ClassLoaderCreator<SavedState>()
     {
         @Override
         public SavedState createFromParcel(Parcel in, ClassLoader loader)
@@ -44,10 +51,16 @@ public class SavedState extends AbsSavedState
             return new SavedState(in, loader);
         }
 
+        @Override
+        public SavedState createFromParcel(Parcel in)
+        {
+            return new SavedState(in, null);
+        }
+
         @Override
         public SavedState[] newArray(int size)
         {
             return new SavedState[size];
         }
-    });
+    };
 }
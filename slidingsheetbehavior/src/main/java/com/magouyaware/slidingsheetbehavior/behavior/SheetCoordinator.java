@@ -0,0 +1,270 @@
+package com.magouyaware.slidingsheetbehavior.behavior;
+
+import android.support.annotation.VisibleForTesting;
+import android.support.design.widget.CoordinatorLayout;
+import android.support.v4.view.ViewCompat;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.magouyaware.slidingsheetbehavior.R;
+import com.magouyaware.slidingsheetbehavior.enums.SlideState;
+
+import java.util.ArrayList;
+
+/**
+ * Coordinates all of the sliding sheets in one {@link CoordinatorLayout}.  Each touch gesture is
+ * hit tested once, when it starts, and only the sheet that owns the gesture handles its events.
+ * The other sheets skip the gesture entirely until the next one starts.
+ *
+ * <p>The coordinator also drives the animation of every sheet in the parent from a single frame
+ * callback.  Each frame, all of the settling sheets are moved first, then every pending slide
+ * event is delivered, and then the state changes of the sheets that came to rest.</p>
+ */
+final class SheetCoordinator implements Choreographer.FrameCallback
+{
+    private static final long NO_GESTURE = Long.MIN_VALUE;
+
+    private final CoordinatorLayout m_parent;
+    private final ArrayList<SlidingSheetBehavior<?>> m_sheets = new ArrayList<>();
+    private long m_gestureDownTime = NO_GESTURE;
+    private SlidingSheetBehavior<?> m_gestureOwner;
+
+    private final ArrayList<SlidingSheetBehavior<?>> m_settling = new ArrayList<>();
+    private final ArrayList<SlidingSheetBehavior<?>> m_slidePending = new ArrayList<>();
+    private final ArrayList<SlidingSheetBehavior<?>> m_settled = new ArrayList<>();
+    private boolean m_framePosted;
+
+    private SheetCoordinator(CoordinatorLayout parent)
+    {
+        m_parent = parent;
+    }
+
+    /**
+     * Gets the coordinator for the sheets in the {@code parent}, creating it if needed
+     */
+    static SheetCoordinator from(CoordinatorLayout parent)
+    {
+        Object tag = parent.getTag(R.id.slidingsheet_coordinator);
+        if (tag instanceof SheetCoordinator)
+            return (SheetCoordinator) tag;
+
+        SheetCoordinator coordinator = new SheetCoordinator(parent);
+        parent.setTag(R.id.slidingsheet_coordinator, coordinator);
+        return coordinator;
+    }
+
+    CoordinatorLayout getParent()
+    {
+        return m_parent;
+    }
+
+    void register(SlidingSheetBehavior<?> sheet)
+    {
+        if (!m_sheets.contains(sheet))
+            m_sheets.add(sheet);
+    }
+
+    void unregister(SlidingSheetBehavior<?> sheet)
+    {
+        m_sheets.remove(sheet);
+        m_settling.remove(sheet);
+        m_slidePending.remove(sheet);
+        if (m_gestureOwner == sheet)
+            m_gestureOwner = null;
+
+        // Nothing is left to animate, so the parent isn't kept alive by a pending frame
+        if (m_sheets.isEmpty())
+        {
+            m_settling.clear();
+            m_slidePending.clear();
+            m_settled.clear();
+            if (m_framePosted)
+            {
+                m_framePosted = false;
+                Choreographer.getInstance().removeFrameCallback(this);
+            }
+        }
+    }
+
+    /**
+     * Steps the {@code sheet} with {@link SlidingSheetBehavior#stepSettle(long)} every frame until
+     * it stops settling
+     */
+    void startSettling(SlidingSheetBehavior<?> sheet)
+    {
+        if (!m_settling.contains(sheet))
+            m_settling.add(sheet);
+
+        postFrame();
+    }
+
+    void stopSettling(SlidingSheetBehavior<?> sheet)
+    {
+        m_settling.remove(sheet);
+    }
+
+    /**
+     * @return The number of sheets that are stepped each frame
+     */
+    @VisibleForTesting
+    int getSettlingCount()
+    {
+        return m_settling.size();
+    }
+
+    /**
+     * @return True if a frame callback is waiting for the next frame
+     */
+    @VisibleForTesting
+    boolean isFramePosted()
+    {
+        return m_framePosted;
+    }
+
+    /**
+     * Delivers the {@code sheet}'s latest slide event with the rest of the next frame's events
+     */
+    void deliverSlideOnNextFrame(SlidingSheetBehavior<?> sheet)
+    {
+        if (!m_slidePending.contains(sheet))
+            m_slidePending.add(sheet);
+
+        postFrame();
+    }
+
+    void cancelSlideDelivery(SlidingSheetBehavior<?> sheet)
+    {
+        m_slidePending.remove(sheet);
+    }
+
+    private void postFrame()
+    {
+        if (m_framePosted)
+            return;
+
+        m_framePosted = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos)
+    {
+        m_framePosted = false;
+
+        // Move every sheet before notifying anyone, so that callbacks see all of the sheets at
+        // their positions for this frame. Stepping doesn't call out to callbacks.
+        for (int i = 0, count = m_settling.size(); i < count; i++)
+        {
+            SlidingSheetBehavior<?> sheet = m_settling.get(i);
+            if (!sheet.stepSettle(frameTimeNanos))
+                m_settled.add(sheet);
+        }
+
+        m_settling.removeAll(m_settled);
+
+        // Callbacks may move sheets again, which can add to the list while it is delivered
+        for (int i = 0; i < m_slidePending.size(); i++)
+            m_slidePending.get(i).deliverPendingSlide();
+
+        m_slidePending.clear();
+
+        // A sheet that was sent somewhere else by a slide callback is still settling, and one that
+        // a callback removed from the parent no longer settles. Removing the last sheet empties
+        // the list.
+        for (int i = 0; i < m_settled.size(); i++)
+        {
+            SlidingSheetBehavior<?> sheet = m_settled.get(i);
+            if (!m_settling.contains(sheet) && m_sheets.contains(sheet))
+                sheet.finishSettle();
+        }
+
+        m_settled.clear();
+
+        if (!m_settling.isEmpty())
+            postFrame();
+    }
+
+    /**
+     * @return True if the {@code sheet} should handle the {@code event}.  The owner of a gesture
+     *         is decided by its down event; every sheet handles gestures that started before the
+     *         coordinator saw them.
+     */
+    boolean ownsGesture(SlidingSheetBehavior<?> sheet, MotionEvent event)
+    {
+        long downTime = event.getDownTime();
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN && downTime != m_gestureDownTime)
+        {
+            m_gestureDownTime = downTime;
+            m_gestureOwner = findOwner((int) event.getX(), (int) event.getY());
+        }
+        else if (downTime != m_gestureDownTime)
+        {
+            return true;
+        }
+
+        return m_gestureOwner == sheet;
+    }
+
+    /**
+     * Finds a hidden sheet whose drag edge was touched, since that is the only way to bring it
+     * back even when another sheet covers the edge.  Otherwise finds the top most sheet under the
+     * touch (a sheet whose scrim consumes touches covers everything below it), or a sheet whose
+     * drag edge was touched if there isn't one.
+     */
+    private SlidingSheetBehavior<?> findOwner(int x, int y)
+    {
+        for (int i = 0, count = m_sheets.size(); i < count; i++)
+        {
+            SlidingSheetBehavior<?> sheet = m_sheets.get(i);
+            View view = sheet.getSheetView();
+            if (view != null && view.getParent() == m_parent && sheet.getState() == SlideState.Hidden &&
+                sheet.isShownOrRevealable(view) && sheet.isEdgeDragTouch(x, y))
+            {
+                return sheet;
+            }
+        }
+
+        SlidingSheetBehavior<?> owner = null;
+        View ownerView = null;
+
+        for (int i = 0, count = m_sheets.size(); i < count; i++)
+        {
+            SlidingSheetBehavior<?> sheet = m_sheets.get(i);
+            View view = sheet.getSheetView();
+            if (view == null || view.getParent() != m_parent || !view.isShown())
+                continue;
+
+            if (!sheet.blocksScrimTouches() && !m_parent.isPointInChildBounds(view, x, y))
+                continue;
+
+            if (ownerView == null || isAbove(view, ownerView))
+            {
+                owner = sheet;
+                ownerView = view;
+            }
+        }
+
+        if (owner != null)
+            return owner;
+
+        for (int i = 0, count = m_sheets.size(); i < count; i++)
+        {
+            SlidingSheetBehavior<?> sheet = m_sheets.get(i);
+            if (sheet.isEdgeDragTouch(x, y))
+                return sheet;
+        }
+
+        return null;
+    }
+
+    private boolean isAbove(View view, View other)
+    {
+        float z = ViewCompat.getZ(view);
+        float otherZ = ViewCompat.getZ(other);
+        if (z != otherZ)
+            return z > otherZ;
+
+        return m_parent.indexOfChild(view) > m_parent.indexOfChild(other);
+    }
+}
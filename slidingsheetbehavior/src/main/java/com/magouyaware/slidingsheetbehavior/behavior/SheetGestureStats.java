@@ -0,0 +1,175 @@
+package com.magouyaware.slidingsheetbehavior.behavior;
+
+import com.magouyaware.slidingsheetbehavior.enums.SlideState;
+
+/**
+ * Frame timing collected for a single sliding sheet gesture.  All times are in nanoseconds and
+ * are based on {@link android.view.Choreographer} frame times.  Storage is allocated up front, so
+ * collecting these doesn't allocate while the sheet is moving.
+ */
+public final class SheetGestureStats
+{
+    /**
+     * The number of individual frame durations that are kept for each gesture.  Frames after this
+     * are still counted in the totals.
+     */
+    public static final int MAX_RECORDED_FRAMES = 240;
+
+    /**
+     * Returned by {@link #getTouchToFirstMovementNanos()} when the sheet never moved
+     */
+    public static final long NO_MOVEMENT = -1;
+
+    private final long[] m_frameDurations = new long[MAX_RECORDED_FRAMES];
+    private int m_frameCount;
+    private int m_jankyFrameCount;
+    private long m_maxFrameNanos;
+    private long m_frameBudgetNanos;
+    private long m_touchToFirstMovementNanos = NO_MOVEMENT;
+    private long m_settleDurationNanos;
+    private long m_gestureDurationNanos;
+    private SlideState m_endState;
+
+    /**
+     * @return The number of frames rendered during the gesture
+     */
+    public int getFrameCount()
+    {
+        return m_frameCount;
+    }
+
+    /**
+     * @return The number of frames that took longer than the frame budget.  Frame times are
+     *         aligned to vsync, so only frames that missed at least one vsync are counted.
+     */
+    public int getJankyFrameCount()
+    {
+        return m_jankyFrameCount;
+    }
+
+    /**
+     * @return The longest time between two frames during the gesture
+     */
+    public long getMaxFrameNanos()
+    {
+        return m_maxFrameNanos;
+    }
+
+    /**
+     * @return The time available for each frame, based on the refresh rate of the display
+     */
+    public long getFrameBudgetNanos()
+    {
+        return m_frameBudgetNanos;
+    }
+
+    /**
+     * @return The time from the touch down event to the first frame in which the sheet had moved,
+     *         or {@link #NO_MOVEMENT} if the sheet never moved
+     */
+    public long getTouchToFirstMovementNanos()
+    {
+        return m_touchToFirstMovementNanos;
+    }
+
+    /**
+     * @return The time the sheet spent settling after it was released, or 0 if it didn't settle
+     */
+    public long getSettleDurationNanos()
+    {
+        return m_settleDurationNanos;
+    }
+
+    /**
+     * @return The time from the touch down event to the end of the gesture
+     */
+    public long getGestureDurationNanos()
+    {
+        return m_gestureDurationNanos;
+    }
+
+    /**
+     * @return The state the sheet was in when the gesture finished
+     */
+    public SlideState getEndState()
+    {
+        return m_endState;
+    }
+
+    /**
+     * @return The number of frame durations available from {@link #getFrameDurationNanos(int)}
+     */
+    public int getRecordedFrameCount()
+    {
+        return Math.min(m_frameCount, MAX_RECORDED_FRAMES);
+    }
+
+    /**
+     * @param index The index of the frame, from 0 to {@link #getRecordedFrameCount()} - 1
+     * @return The time between the given frame and the frame before it
+     */
+    public long getFrameDurationNanos(int index)
+    {
+        if (index < 0 || index >= getRecordedFrameCount())
+            throw new IndexOutOfBoundsException("Invalid frame index: " + index);
+
+        return m_frameDurations[index];
+    }
+
+    /**
+     * @return A copy of these stats that won't be overwritten by later gestures
+     */
+    public SheetGestureStats copy()
+    {
+        SheetGestureStats copy = new SheetGestureStats();
+        System.arraycopy(m_frameDurations, 0, copy.m_frameDurations, 0, getRecordedFrameCount());
+        copy.m_frameCount = m_frameCount;
+        copy.m_jankyFrameCount = m_jankyFrameCount;
+        copy.m_maxFrameNanos = m_maxFrameNanos;
+        copy.m_frameBudgetNanos = m_frameBudgetNanos;
+        copy.m_touchToFirstMovementNanos = m_touchToFirstMovementNanos;
+        copy.m_settleDurationNanos = m_settleDurationNanos;
+        copy.m_gestureDurationNanos = m_gestureDurationNanos;
+        copy.m_endState = m_endState;
+        return copy;
+    }
+
+    void reset(long frameBudgetNanos)
+    {
+        m_frameCount = 0;
+        m_jankyFrameCount = 0;
+        m_maxFrameNanos = 0;
+        m_frameBudgetNanos = frameBudgetNanos;
+        m_touchToFirstMovementNanos = NO_MOVEMENT;
+        m_settleDurationNanos = 0;
+        m_gestureDurationNanos = 0;
+        m_endState = null;
+    }
+
+    void addFrame(long durationNanos)
+    {
+        if (m_frameCount < MAX_RECORDED_FRAMES)
+            m_frameDurations[m_frameCount] = durationNanos;
+
+        m_frameCount++;
+
+        // Allow for vsync jitter; anything past half a frame over budget missed a vsync
+        if (durationNanos > m_frameBudgetNanos + m_frameBudgetNanos / 2)
+            m_jankyFrameCount++;
+
+        if (durationNanos > m_maxFrameNanos)
+            m_maxFrameNanos = durationNanos;
+    }
+
+    void setTouchToFirstMovementNanos(long nanos)
+    {
+        m_touchToFirstMovementNanos = nanos;
+    }
+
+    void finish(long gestureDurationNanos, long settleDurationNanos, SlideState endState)
+    {
+        m_gestureDurationNanos = gestureDurationNanos;
+        m_settleDurationNanos = settleDurationNanos;
+        m_endState = endState;
+    }
+}
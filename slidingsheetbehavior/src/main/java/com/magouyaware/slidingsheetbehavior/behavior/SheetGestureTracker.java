@@ -0,0 +1,180 @@
+package com.magouyaware.slidingsheetbehavior.behavior;
+
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.View;
+
+import com.magouyaware.slidingsheetbehavior.callbacks.ISheetPerformanceListener;
+import com.magouyaware.slidingsheetbehavior.enums.SlideState;
+
+/**
+ * Collects {@link SheetGestureStats} for a sliding sheet, from the touch down event that starts a
+ * gesture until the sheet comes to rest again after the touch is released.  The sheet can come
+ * to rest while the finger is still down, such as when a nested scroll pushes it to expanded, so
+ * the gesture only finishes once it has been released.
+ */
+class SheetGestureTracker implements Choreographer.FrameCallback
+{
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final long NO_FRAME = Long.MIN_VALUE;
+
+    private final SheetGestureStats m_stats = new SheetGestureStats();
+    private boolean m_active;
+    private boolean m_released;
+    private boolean m_posted;
+    private boolean m_moved;
+    private boolean m_movementPending;
+    private long m_downTimeNanos;
+    private long m_lastFrameTimeNanos;
+    private long m_settleStartNanos;
+    private long m_settleEndNanos;
+
+    /**
+     * Starts tracking a new gesture, abandoning the previous one if it never finished.
+     *
+     * @param sheet          The sliding sheet
+     * @param downTimeMillis The event time of the touch down event, in {@link android.os.SystemClock#uptimeMillis()} time
+     */
+    void onTouchDown(View sheet, long downTimeMillis)
+    {
+        Display display = sheet.getDisplay();
+        float refreshRate = display != null ? display.getRefreshRate() : DEFAULT_REFRESH_RATE;
+        if (refreshRate <= 0)
+            refreshRate = DEFAULT_REFRESH_RATE;
+
+        m_stats.reset((long) (NANOS_PER_SECOND / refreshRate));
+        m_active = true;
+        m_released = false;
+        m_moved = false;
+        m_movementPending = false;
+        m_downTimeNanos = downTimeMillis * NANOS_PER_MILLI;
+        m_lastFrameTimeNanos = NO_FRAME;
+        m_settleStartNanos = NO_FRAME;
+        m_settleEndNanos = NO_FRAME;
+
+        if (!m_posted)
+        {
+            m_posted = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Called whenever the sheet moves
+     */
+    void onMovement()
+    {
+        if (m_active && !m_moved)
+        {
+            m_moved = true;
+            m_movementPending = true;
+        }
+    }
+
+    /**
+     * Called when the touch is released or cancelled, or when the nested scroll that the gesture
+     * drove ends.  Finishes the gesture if the sheet is already at rest; otherwise it finishes
+     * once the sheet comes to rest.
+     *
+     * @param eventTimeMillis The event time of the release, in {@link android.os.SystemClock#uptimeMillis()} time
+     */
+    void onTouchReleased(View sheet, SlideState state, long eventTimeMillis, ISheetPerformanceListener listener)
+    {
+        if (!m_active || m_released)
+            return;
+
+        m_released = true;
+        if (!state.isMoving())
+            finish(sheet, state, eventTimeMillis * NANOS_PER_MILLI, 0, listener);
+    }
+
+    /**
+     * Called for each frame in which the sheet is moved by a settle
+     *
+     * @param frameTimeNanos The time of the frame, from {@link Choreographer.FrameCallback#doFrame(long)}
+     */
+    void onSettleFrame(long frameTimeNanos)
+    {
+        if (!m_active)
+            return;
+
+        // The settle started in between frames, so it is timed from the frame before it started
+        if (m_settleStartNanos == NO_FRAME)
+            m_settleStartNanos = m_lastFrameTimeNanos != NO_FRAME ? m_lastFrameTimeNanos : frameTimeNanos;
+
+        m_settleEndNanos = frameTimeNanos;
+    }
+
+    /**
+     * Finishes a released gesture once the sheet comes to rest
+     */
+    void onStateChanged(View sheet, SlideState state, ISheetPerformanceListener listener)
+    {
+        if (!m_active || !m_released || state.isMoving())
+            return;
+
+        // A sheet that settled came to rest in its last settle frame; otherwise it came to rest
+        // while handling an event, which is timed by the latest frame
+        long endNanos;
+        long settleDurationNanos = 0;
+        if (m_settleEndNanos != NO_FRAME)
+        {
+            endNanos = m_settleEndNanos;
+            settleDurationNanos = m_settleEndNanos - m_settleStartNanos;
+        }
+        else
+        {
+            endNanos = m_lastFrameTimeNanos != NO_FRAME ? m_lastFrameTimeNanos : m_downTimeNanos;
+        }
+
+        finish(sheet, state, endNanos, settleDurationNanos, listener);
+    }
+
+    void cancel()
+    {
+        m_active = false;
+        removeFrameCallback();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos)
+    {
+        m_posted = false;
+        if (!m_active)
+            return;
+
+        if (m_lastFrameTimeNanos != NO_FRAME)
+            m_stats.addFrame(frameTimeNanos - m_lastFrameTimeNanos);
+
+        if (m_movementPending)
+        {
+            m_movementPending = false;
+            m_stats.setTouchToFirstMovementNanos(Math.max(0, frameTimeNanos - m_downTimeNanos));
+        }
+
+        m_lastFrameTimeNanos = frameTimeNanos;
+        m_posted = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private void finish(View sheet, SlideState state, long endNanos, long settleDurationNanos, ISheetPerformanceListener listener)
+    {
+        m_active = false;
+        removeFrameCallback();
+
+        m_stats.finish(Math.max(0, endNanos - m_downTimeNanos), settleDurationNanos, state);
+        if (listener != null)
+            listener.onGestureFinished(sheet, m_stats);
+    }
+
+    private void removeFrameCallback()
+    {
+        if (m_posted)
+        {
+            m_posted = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+}
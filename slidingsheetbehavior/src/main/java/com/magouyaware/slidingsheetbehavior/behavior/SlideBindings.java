@@ -0,0 +1,143 @@
+package com.magouyaware.slidingsheetbehavior.behavior;
+
+import android.animation.TimeInterpolator;
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+
+import com.magouyaware.slidingsheetbehavior.core.OffsetBindingTable;
+import com.magouyaware.slidingsheetbehavior.enums.SlideProperty;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * The views whose properties follow the slide offset of a sheet.  The numbers for each binding
+ * live in an {@link OffsetBindingTable}, and the target and interpolator of each binding are kept
+ * in arrays parallel to it, so applying every binding is a single loop that switches on the
+ * property code instead of calling back into a listener per binding.
+ */
+final class SlideBindings
+{
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final OffsetBindingTable m_table = new OffsetBindingTable();
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private WeakReference<View>[] m_targets = new WeakReference[INITIAL_CAPACITY];
+    private TimeInterpolator[] m_interpolators = new TimeInterpolator[INITIAL_CAPACITY];
+    private float m_appliedOffset = Float.NaN;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void add(View target, SlideProperty property, float fromOffset, float toOffset, float fromValue, float toValue, TimeInterpolator interpolator)
+    {
+        int index = m_table.add(property.getIntValue(), fromOffset, toOffset, fromValue, toValue);
+        if (index == m_targets.length)
+        {
+            WeakReference<View>[] targets = new WeakReference[index * 2];
+            System.arraycopy(m_targets, 0, targets, 0, index);
+            m_targets = targets;
+
+            TimeInterpolator[] interpolators = new TimeInterpolator[index * 2];
+            System.arraycopy(m_interpolators, 0, interpolators, 0, index);
+            m_interpolators = interpolators;
+        }
+
+        m_targets[index] = new WeakReference<>(target);
+        m_interpolators[index] = interpolator;
+        m_appliedOffset = Float.NaN;
+    }
+
+    /**
+     * Removes the bindings for the {@code target}, along with any whose target has been garbage
+     * collected
+     */
+    void remove(View target)
+    {
+        for (int i = m_table.size() - 1; i >= 0; i--)
+        {
+            View bound = m_targets[i].get();
+            if (bound == null || bound == target)
+                removeAt(i);
+        }
+    }
+
+    private void removeAt(int index)
+    {
+        int count = m_table.size();
+        m_table.remove(index);
+
+        int moved = count - index - 1;
+        System.arraycopy(m_targets, index + 1, m_targets, index, moved);
+        System.arraycopy(m_interpolators, index + 1, m_interpolators, index, moved);
+        m_targets[count - 1] = null;
+        m_interpolators[count - 1] = null;
+    }
+
+    void clear()
+    {
+        for (int i = 0, count = m_table.size(); i < count; i++)
+        {
+            m_targets[i] = null;
+            m_interpolators[i] = null;
+        }
+
+        m_table.clear();
+    }
+
+    boolean isEmpty()
+    {
+        return m_table.size() == 0;
+    }
+
+    /**
+     * Sets every bound property from the slide offset.  Nothing is done if the offset hasn't
+     * changed since the last time the bindings were applied, unless a target was skipped because
+     * it wasn't attached.
+     */
+    void apply(float slideOffset)
+    {
+        if (slideOffset == m_appliedOffset)
+            return;
+
+        boolean skipped = false;
+        OffsetBindingTable table = m_table;
+        for (int i = 0, count = table.size(); i < count; i++)
+        {
+            View target = m_targets[i].get();
+            if (target == null || !ViewCompat.isAttachedToWindow(target))
+            {
+                skipped = true;
+                continue;
+            }
+
+            float fraction = table.getFraction(i, slideOffset);
+            TimeInterpolator interpolator = m_interpolators[i];
+            if (interpolator != null)
+                fraction = interpolator.getInterpolation(fraction);
+
+            float value = table.getValue(i, fraction);
+            switch (table.getProperty(i))
+            {
+                case SlideProperty.ALPHA:
+                    target.setAlpha(value);
+                    break;
+                case SlideProperty.TRANSLATION_X:
+                    target.setTranslationX(value);
+                    break;
+                case SlideProperty.TRANSLATION_Y:
+                    target.setTranslationY(value);
+                    break;
+                case SlideProperty.SCALE_X:
+                    target.setScaleX(value);
+                    break;
+                case SlideProperty.SCALE_Y:
+                    target.setScaleY(value);
+                    break;
+                case SlideProperty.ROTATION:
+                    target.setRotation(value);
+                    break;
+            }
+        }
+
+        // Targets that were skipped pick up the offset once they are attached again
+        m_appliedOffset = skipped ? Float.NaN : slideOffset;
+    }
+}
@@ -1,17 +1,24 @@
 package com.magouyaware.slidingsheetbehavior.behavior;
 
+import android.animation.TimeInterpolator;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.graphics.Rect;
 import android.os.Parcelable;
 import android.os.SystemClock;
+import android.support.annotation.ColorInt;
+import android.support.annotation.FloatRange;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.support.design.widget.CoordinatorLayout;
+import android.support.v4.view.AsyncLayoutInflater;
 import android.support.v4.view.NestedScrollingChild;
-import android.support.v4.view.VelocityTrackerCompat;
 import android.support.v4.view.ViewCompat;
 import android.support.v4.view.ViewPager;
 import android.support.v4.view.ViewPagerUtils;
+import android.support.v4.view.WindowInsetsCompat;
 import android.support.v4.widget.ViewDragHelper;
 import android.util.AttributeSet;
 import android.util.TypedValue;
@@ -21,13 +28,28 @@ import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.ViewParent;
+import android.view.ViewTreeObserver;
 
 import com.magouyaware.slidingsheetbehavior.R;
+import com.magouyaware.slidingsheetbehavior.callbacks.ISheetContentProvider;
+import com.magouyaware.slidingsheetbehavior.callbacks.ISheetPerformanceListener;
 import com.magouyaware.slidingsheetbehavior.callbacks.ISlidingSheetCallback;
+import com.magouyaware.slidingsheetbehavior.core.SheetGeometry;
+import com.magouyaware.slidingsheetbehavior.core.TouchInterceptPolicy;
+import com.magouyaware.slidingsheetbehavior.enums.MovementMode;
+import com.magouyaware.slidingsheetbehavior.enums.ScrimTouchAction;
+import com.magouyaware.slidingsheetbehavior.enums.SlideDispatchMode;
 import com.magouyaware.slidingsheetbehavior.enums.SlideEdge;
+import com.magouyaware.slidingsheetbehavior.enums.SlideProperty;
 import com.magouyaware.slidingsheetbehavior.enums.SlideState;
+import com.magouyaware.slidingsheetbehavior.release.IReleasePredictor;
+import com.magouyaware.slidingsheetbehavior.release.ReleasePrediction;
+import com.magouyaware.slidingsheetbehavior.settle.ISettleEngine;
+import com.magouyaware.slidingsheetbehavior.settle.SpringSettleEngine;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Map;
 
 
 /**
@@ -44,9 +66,14 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
      */
     public static final int PEEK_SIZE_AUTO = -1;
 
+    /**
+     * Returned by {@link #getDetentIndex()} when the sheet is not resting at a detent.
+     */
+    public static final int NO_DETENT = -1;
+
     private static final int NO_EDGE_DRAG = 0;
-    private static final float HIDE_THRESHOLD = 0.5f;
-    private static final float HIDE_FRICTION = 0.1f;
+
+    private static final ISlidingSheetCallback[] NO_CALLBACKS = new ISlidingSheetCallback[0];
 
     private static final int SCROLL_LEFT_OR_UP = -1;
     private static final int SCROLL_RIGHT_OR_DOWN = 1;
@@ -55,24 +82,48 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
     private int m_peekSize;
     private boolean m_peekSizeAuto;
     private int m_peekSizeMin;
-    private int m_minOffset;
-    private int m_maxOffset;
     private boolean m_hideable;
     private boolean m_skipCollapsed;
     private SlideState m_state = SlideState.Collapsed;
+    private int m_detentIndex = NO_DETENT;
     private ViewDragHelper m_viewDragHelper;
     private boolean m_ignoreEvents;
+    private boolean m_revealingEdgeTouch;
     private int m_lastNestedScrollDelta;
+    private float m_nestedFlingVelocity;
     private boolean m_nestedScrolled;
     private int m_parentSize;
+    private int m_laidOutParentWidth = -1;
+    private int m_laidOutParentHeight = -1;
+    private int m_laidOutDirection;
+    private final Rect m_laidOutParentPadding = new Rect();
+    private final Rect m_laidOutChildMargins = new Rect();
+    private final Rect m_windowInsets = new Rect();
+    private final Rect m_laidOutWindowInsets = new Rect();
     private WeakReference<CoordinatorLayout> m_parentRef;
+    private SheetCoordinator m_coordinator;
     private WeakReference<V> m_childRef;
     private WeakReference<View> m_nestedScrollingChildRef;
+    private boolean m_nestedScrollingChildExplicit;
+    private boolean m_nestedScrollingChildDirty = true;
+    private final ArrayList<PageChangeTracker> m_pageChangeTrackers = new ArrayList<>();
+    private final ArrayList<WeakReference<ViewGroup>> m_watchedGroups = new ArrayList<>();
+    private final HierarchyChangeTracker m_hierarchyChangeTracker = new HierarchyChangeTracker();
     private ISlidingSheetCallback m_callback;
+
+    // Copy-on-write: the array is replaced (never modified) when callbacks are added or removed, so
+    // a dispatch that is in progress keeps iterating over the array it started with
+    private ISlidingSheetCallback[] m_callbacks = NO_CALLBACKS;
+    private SlideDispatchMode m_slideDispatchMode = SlideDispatchMode.Immediate;
+    private boolean m_slidePending;
+    private boolean m_steppingSettle;
+    private ISheetPerformanceListener m_performanceListener;
+    private SheetGestureTracker m_gestureTracker;
     private VelocityTracker m_velocityTracker;
+    private long m_trackedDownTime = -1;
     private int m_activePointerId;
-    private int m_initialX;
-    private int m_initialY;
+    private final TouchInterceptPolicy m_touchPolicy = new TouchInterceptPolicy();
+    private final NestedScrollTarget m_scrollTarget = new NestedScrollTarget();
     private boolean m_touchingScrollingChild;
     private SlideEdge m_slideEdge;
 
@@ -84,8 +135,44 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
     private boolean m_slideIsVertical;
     private boolean m_edgeDragEnabled;
 
+    private boolean m_hardwareLayerWhileMoving;
+    private boolean m_goneWhenHidden;
+    private boolean m_goneWhileHidden;
+    private boolean m_motionLayerActive;
+    private boolean m_motionLayerSuppressed;
+    private int m_savedLayerType = View.LAYER_TYPE_NONE;
+
     private boolean m_needsOffsetUpdate = false;
+
+    // Geometry snapshot, resolved in setChildOffsetRange() so that drag-time lookups and slide
+    // offset math are plain field reads. Only recalculated when one of its inputs changes.
+    private final SheetGeometry m_geometry = new SheetGeometry();
+    private float m_slideOffset;
     private ViewDragHelper.Callback m_dragCallback = new ViewDragHelperCallback();
+    private ISettleEngine m_settleEngine;
+    private SpringSettleEngine m_defaultSettleEngine;
+    private MovementMode m_movementMode = MovementMode.Offset;
+    private IReleasePredictor m_releasePredictor;
+    private int m_scrimColor = Color.BLACK;
+    private float m_scrimOpacity;
+    private ScrimTouchAction m_scrimTouchAction = ScrimTouchAction.None;
+    private boolean m_scrimTouched;
+    private final SlideBindings m_bindings = new SlideBindings();
+    private ISheetContentProvider m_contentProvider;
+    private AsyncLayoutInflater m_contentInflater;
+    private boolean m_contentRequested;
+    private boolean m_contentInflated;
+    private int m_contentGeneration;
+    private WeakReference<View> m_contentRef;
+    private final ReleasePrediction m_releasePrediction = new ReleasePrediction();
+
+    // The touch event the ViewDragHelper is processing, so that a drag in translation mode can be
+    // anchored to the touch that captured the sheet. Only set while the event is being processed.
+    private MotionEvent m_dragEvent;
+    private float m_dragAnchorTouch = Float.NaN;
+    private float m_dragAnchorPosition;
+    private final SettleDriver m_settleDriver = new SettleDriver();
+    private final PendingSettle m_pendingSettle = new PendingSettle();
 
     /**
      * A utility function to get the {@link SlidingSheetBehavior} associated with the {@code view}.
@@ -107,6 +194,31 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
         return (SlidingSheetBehavior<V>) behavior;
     }
 
+    /**
+     * Moves several sheets to new states at once, as if {@link #setState(SlideState)} was called
+     * on each of them.  Sheets that share a parent are animated together: they start moving in
+     * the same frame, and each frame delivers the slide events of every sheet before any of
+     * their state changes.
+     *
+     * @param states The state to move each sheet to, keyed by the sheet's view
+     * @throws IllegalArgumentException If one of the views isn't associated with a {@link SlidingSheetBehavior}
+     */
+    public static void setStates(@NonNull Map<? extends View, SlideState> states)
+    {
+        // Check every sheet first so that a bad entry doesn't leave the others half started
+        for (Map.Entry<? extends View, SlideState> entry : states.entrySet())
+        {
+            if (from(entry.getKey()) == null)
+                throw new IllegalArgumentException("The view is not associated with SlidingSheetBehavior");
+
+            if (entry.getValue() == SlideState.Anchored)
+                throw new IllegalArgumentException("Use setDetent() to anchor a sheet at a detent");
+        }
+
+        for (Map.Entry<? extends View, SlideState> entry : states.entrySet())
+            from(entry.getKey()).setState(entry.getValue());
+    }
+
     /**
      * Default constructor for instantiating SlidingSheetBehaviors.  It uses PEEK_SIZE_AUTO for the
      * peek size, is not hideable, does not skip collapsed state, and doesn't use edge dragging. To
@@ -119,6 +231,7 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
         setHideable(false);
         setSkipCollapsed(false);
         enableEdgeDrag(false);
+        setHardwareLayerWhileMoving(false);
         setSlideEdge(edge);
     }
 
@@ -144,6 +257,20 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
         setHideable(array.getBoolean(R.styleable.SlidingSheetBehavior_Layout_behavior_hideable, false));
         setSkipCollapsed(array.getBoolean(R.styleable.SlidingSheetBehavior_Layout_behavior_skipCollapsed, false));
         enableEdgeDrag(array.getBoolean(R.styleable.SlidingSheetBehavior_Layout_behavior_enableEdgeDrag, false));
+        setHardwareLayerWhileMoving(array.getBoolean(R.styleable.SlidingSheetBehavior_Layout_behavior_hardwareLayerWhileMoving, false));
+        setGoneWhenHidden(array.getBoolean(R.styleable.SlidingSheetBehavior_Layout_behavior_goneWhenHidden, false));
+
+        int dispatchMode = array.getInt(R.styleable.SlidingSheetBehavior_Layout_behavior_slideDispatchMode, SlideDispatchMode.Immediate.getIntValue());
+        setSlideDispatchMode(SlideDispatchMode.fromIntValue(dispatchMode));
+
+        int movementMode = array.getInt(R.styleable.SlidingSheetBehavior_Layout_behavior_movementMode, MovementMode.Offset.getIntValue());
+        setMovementMode(MovementMode.fromIntValue(movementMode));
+
+        setScrimColor(array.getColor(R.styleable.SlidingSheetBehavior_Layout_behavior_scrimColor, Color.BLACK));
+        setScrimOpacity(array.getFloat(R.styleable.SlidingSheetBehavior_Layout_behavior_scrimOpacity, 0));
+
+        int scrimTouchAction = array.getInt(R.styleable.SlidingSheetBehavior_Layout_behavior_scrimTouchAction, ScrimTouchAction.None.getIntValue());
+        setScrimTouchAction(ScrimTouchAction.fromIntValue(scrimTouchAction));
 
         int slideEdge = array.getInt(R.styleable.SlidingSheetBehavior_Layout_behavior_slideEdge, SlideEdge.Bottom.getDragEdge());
         setSlideEdge(SlideEdge.fromIntValue(slideEdge));
@@ -159,10 +286,40 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
         m_peekSizeMin = context.getResources().getDimensionPixelSize(R.dimen.slidingsheet_min_peek_size);
     }
 
+    @Override
+    public void onDetachedFromLayoutParams()
+    {
+        super.onDetachedFromLayoutParams();
+
+        m_settleDriver.cancel();
+        m_pendingSettle.cancel();
+        cancelEngineSettling();
+        m_scrollTarget.release();
+        untrackViewPagers();
+        unwatchHierarchy();
+
+        // Don't leave the view gone once it is no longer a sheet
+        V child = getChild();
+        if (child != null)
+            revealHiddenSheet(child);
+
+        if (m_coordinator != null)
+        {
+            m_coordinator.unregister(this);
+            m_coordinator = null;
+        }
+
+        if (m_velocityTracker != null)
+        {
+            m_velocityTracker.recycle();
+            m_velocityTracker = null;
+        }
+    }
+
     @Override
     public Parcelable onSaveInstanceState(CoordinatorLayout parent, V child)
     {
-        return new SavedState(super.onSaveInstanceState(parent, child), m_state);
+        return new SavedState(super.onSaveInstanceState(parent, child), m_state, m_detentIndex);
     }
 
     @Override
@@ -176,6 +333,8 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
             m_state = SlideState.Collapsed;
         else
             m_state = ss.state;
+
+        m_detentIndex = ss.detentIndex;
     }
 
     @Override
@@ -184,7 +343,34 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
         if (ViewCompat.getFitsSystemWindows(parent) && !ViewCompat.getFitsSystemWindows(child))
             ViewCompat.setFitsSystemWindows(child, true);
 
-        m_parentRef = new WeakReference<>(parent);
+        if (isLayoutUnchanged(parent, child, layoutDirection))
+        {
+            // Something else in the parent changed, so the sheet only has to stay where it is
+            if (!m_state.isMoving())
+            {
+                int position = getPositionForState(m_state, child);
+                if (position != getExactChildPosition(child))
+                {
+                    setChildPosition(child, position);
+                    m_slideOffset = m_geometry.calculateSlideOffset(position);
+                }
+            }
+
+            m_bindings.apply(m_slideOffset);
+            return true;
+        }
+
+        if (getParent() != parent)
+            m_parentRef = new WeakReference<>(parent);
+
+        if (m_coordinator == null || m_coordinator.getParent() != parent)
+        {
+            if (m_coordinator != null)
+                m_coordinator.unregister(this);
+
+            m_coordinator = SheetCoordinator.from(parent);
+            m_coordinator.register(this);
+        }
 
         // First let the parent lay it out
         int savedChildPosition = getChildPosition(child);
@@ -196,13 +382,24 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
 
         setChildOffsetRange(child, actualPeekSize);
 
+        // The detent the sheet was resting at may no longer fit between collapsed and expanded
+        if (m_state == SlideState.Anchored && m_detentIndex >= m_geometry.getDetentCount())
+            setStateInternal(SlideState.Collapsed);
+
         if (m_state.isMoving())
             offsetChildView(child, savedChildPosition - getChildPosition(child));
+        else if (m_movementMode == MovementMode.Translation)
+            setChildPosition(child, getPositionForState(m_state, child));
         else
             offsetChildView(child, getPositionForState(m_state, child));
 
+        m_slideOffset = m_geometry.calculateSlideOffset(getExactChildPosition(child));
+
         if (m_viewDragHelper == null)
+        {
             m_viewDragHelper = ViewDragHelper.create(parent, m_dragCallback);
+            m_touchPolicy.setTouchSlop(m_viewDragHelper.getTouchSlop());
+        }
 
         enableEdgeDragInternal(m_edgeDragEnabled);
 
@@ -212,28 +409,109 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
         // require the developer to remember to set that attribute, we'll just take care of that here
         child.setClickable(true);
 
-        m_childRef = new WeakReference<>(child);
-        m_nestedScrollingChildRef = new WeakReference<>(findScrollingChild(child));
+        if (getChild() != child)
+        {
+            m_childRef = new WeakReference<>(child);
+            m_nestedScrollingChildDirty = true;
+        }
+
+        resolveNestedScrollingChild(child);
+
+        // The sheet may have been restored in a state that needs its content
+        checkContentProvider(child);
+        requestContent(child);
+
+        m_laidOutParentWidth = parent.getWidth();
+        m_laidOutParentHeight = parent.getHeight();
+        m_laidOutDirection = layoutDirection;
+        m_laidOutParentPadding.set(parent.getPaddingLeft(), parent.getPaddingTop(), parent.getPaddingRight(), parent.getPaddingBottom());
+        getMargins(child, m_laidOutChildMargins);
+        m_laidOutWindowInsets.set(m_windowInsets);
+
+        // The scrolling content may have moved within the sheet
+        m_scrollTarget.invalidate();
+        m_scrollTarget.observe(child.getViewTreeObserver());
+
+        m_bindings.apply(m_slideOffset);
+
+        // A sheet that was laid out in its hidden state (such as after being restored) can be
+        // dropped from layout right away. A state requested while this layout was pending is
+        // applied by the pending settle once the layout pass is over.
+        updateHiddenVisibility(child);
         return true;
     }
 
     @Override
-    public boolean onInterceptTouchEvent(CoordinatorLayout parent, V child, MotionEvent event)
+    public WindowInsetsCompat onApplyWindowInsets(CoordinatorLayout parent, V child, WindowInsetsCompat insets)
+    {
+        // The parent lays out children that don't fit system windows within these insets
+        m_windowInsets.set(insets.getSystemWindowInsetLeft(), insets.getSystemWindowInsetTop(),
+                           insets.getSystemWindowInsetRight(), insets.getSystemWindowInsetBottom());
+        return super.onApplyWindowInsets(parent, child, insets);
+    }
+
+    /**
+     * @return True if nothing that affects the layout of the sheet has changed since the last
+     *         time it was laid out, such as when the layout was triggered by one of its siblings
+     */
+    private boolean isLayoutUnchanged(CoordinatorLayout parent, V child, int layoutDirection)
     {
-        if (!child.isShown())
+        return child == getChild() && parent == getParent() && m_viewDragHelper != null && m_coordinator != null &&
+               m_geometry.isValid() && !m_needsOffsetUpdate && !child.isLayoutRequested() &&
+               child.getMeasuredWidth() == child.getWidth() && child.getMeasuredHeight() == child.getHeight() &&
+               parent.getWidth() == m_laidOutParentWidth && parent.getHeight() == m_laidOutParentHeight &&
+               layoutDirection == m_laidOutDirection && m_windowInsets.equals(m_laidOutWindowInsets) &&
+               m_laidOutParentPadding.left == parent.getPaddingLeft() && m_laidOutParentPadding.top == parent.getPaddingTop() &&
+               m_laidOutParentPadding.right == parent.getPaddingRight() && m_laidOutParentPadding.bottom == parent.getPaddingBottom() &&
+               hasMargins(child, m_laidOutChildMargins);
+    }
+
+    private static void getMargins(View child, Rect margins)
+    {
+        ViewGroup.LayoutParams params = child.getLayoutParams();
+        if (params instanceof ViewGroup.MarginLayoutParams)
         {
-            m_ignoreEvents = true;
-            return false;
+            ViewGroup.MarginLayoutParams marginParams = (ViewGroup.MarginLayoutParams) params;
+            margins.set(marginParams.leftMargin, marginParams.topMargin, marginParams.rightMargin, marginParams.bottomMargin);
+        }
+        else
+        {
+            margins.setEmpty();
         }
+    }
+
+    private static boolean hasMargins(View child, Rect margins)
+    {
+        ViewGroup.LayoutParams params = child.getLayoutParams();
+        if (!(params instanceof ViewGroup.MarginLayoutParams))
+            return margins.isEmpty();
+
+        ViewGroup.MarginLayoutParams marginParams = (ViewGroup.MarginLayoutParams) params;
+        return marginParams.leftMargin == margins.left && marginParams.topMargin == margins.top &&
+               marginParams.rightMargin == margins.right && marginParams.bottomMargin == margins.bottom;
+    }
 
+    @Override
+    public boolean onInterceptTouchEvent(CoordinatorLayout parent, V child, MotionEvent event)
+    {
         int action = event.getActionMasked();
         if (action == MotionEvent.ACTION_DOWN)
-            reset();
+            m_revealingEdgeTouch = !child.isShown() && isShownOrRevealable(child) &&
+                                   isEdgeDragTouch((int) event.getX(), (int) event.getY());
 
-        if (m_velocityTracker == null)
-            m_velocityTracker = VelocityTracker.obtain();
+        // A sheet that is gone while hidden only sees the gestures that start on its drag edge,
+        // which is how it gets revealed even when other views under the edge take the touch
+        if (!child.isShown() && !m_revealingEdgeTouch)
+        {
+            m_ignoreEvents = true;
+            return false;
+        }
 
-        m_velocityTracker.addMovement(event);
+        // Another sheet in the same parent owns this gesture
+        if (m_coordinator != null && !m_coordinator.ownsGesture(this, event))
+            return false;
+
+        trackMovement(event);
 
         switch (action)
         {
@@ -243,6 +521,9 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
                 m_touchingScrollingChild = false;
                 m_activePointerId = MotionEvent.INVALID_POINTER_ID;
 
+                if (m_gestureTracker != null)
+                    m_gestureTracker.onTouchReleased(child, m_state, event.getEventTime(), m_performanceListener);
+
                 // Reset the ignore flag
                 if (m_ignoreEvents)
                 {
@@ -253,72 +534,105 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
             }
             case MotionEvent.ACTION_DOWN:
             {
-                m_initialX = (int) event.getX();
-                m_initialY = (int) event.getY();
+                m_touchPolicy.onTouchDown(event.getX(), event.getY());
+                int initialX = m_touchPolicy.getInitialX();
+                int initialY = m_touchPolicy.getInitialY();
+
+                // The whole gesture belongs to the scrim, so none of the views below it see it
+                m_scrimTouched = blocksScrimTouches() && !parent.isPointInChildBounds(child, initialX, initialY);
+                if (m_scrimTouched)
+                    return true;
                 View scroll = getNestedScrollingChild();
 
-                if (scroll != null && parent.isPointInChildBounds(scroll, m_initialX, m_initialY))
+                if (scroll != null && m_scrollTarget.set(child, scroll).containsPoint(initialX, initialY))
                 {
                     m_activePointerId = event.getPointerId(event.getActionIndex());
                     m_touchingScrollingChild = true;
                 }
 
+                // A touch on the drag edge of a hidden sheet is outside of the sheet's bounds, but
+                // the ViewDragHelper still needs to see it to start the edge drag
                 m_ignoreEvents = m_activePointerId == MotionEvent.INVALID_POINTER_ID &&
-                                 !parent.isPointInChildBounds(child, m_initialX, m_initialY);
+                                 !parent.isPointInChildBounds(child, initialX, initialY) &&
+                                 !isEdgeDragTouch(initialX, initialY);
+
+                if (m_gestureTracker != null && !m_ignoreEvents)
+                    m_gestureTracker.onTouchDown(child, event.getDownTime());
                 break;
             }
         }
 
-        if (!m_ignoreEvents && m_viewDragHelper.shouldInterceptTouchEvent(event))
-            return true;
+        if (!m_ignoreEvents)
+        {
+            m_dragEvent = event;
+            boolean intercept = m_viewDragHelper.shouldInterceptTouchEvent(event);
+            m_dragEvent = null;
+
+            if (intercept)
+                return true;
+        }
+
+        // The ViewDragHelper looks for the view under the touch by its layout bounds, which don't
+        // include the translation that moves the sheet in translation mode
+        if (m_movementMode == MovementMode.Translation && action == MotionEvent.ACTION_MOVE && !m_ignoreEvents &&
+            m_viewDragHelper.getViewDragState() == ViewDragHelper.STATE_IDLE && touchEventIndicatesDrag(event))
+        {
+            int pointerId = event.getPointerId(event.getActionIndex());
+            if (m_dragCallback.tryCaptureView(child, pointerId))
+            {
+                captureChild(child, pointerId, event);
+                return true;
+            }
+        }
 
         // We have to handle cases that the ViewDragHelper does not capture the sliding sheet because
         // it is not the top most view of its parent. This is not necessary when the touch event is
         // happening over the scrolling content as nested scrolling logic handles that case.
         View scroll = getNestedScrollingChild();
+        TouchInterceptPolicy.IScrollTarget target = scroll != null ? m_scrollTarget.set(child, scroll) : null;
 
-        // Determining if we should intercept is super confusing... pulling everything out to individual
-        // variables to make it a little easier to read by pulling each part out into its own variable
-        boolean isMoveEvent = action == MotionEvent.ACTION_MOVE;
-        boolean nestedScrollNotNull = scroll != null;
-        boolean notDragging = m_state != SlideState.Dragging;
-        boolean pointInChildBounds = nestedScrollNotNull && parent.isPointInChildBounds(scroll, (int)event.getX(), (int)event.getY());
-        boolean touchEventIsDrag = touchEventIndicatesDrag(event);
-        boolean needsChildBoundsCheck = (canScrollInEventDirection(scroll, event));
-
-        return isMoveEvent &&
-               nestedScrollNotNull &&
-               !m_ignoreEvents &&
-               notDragging &&
-               (!needsChildBoundsCheck || (needsChildBoundsCheck && !pointInChildBounds)) &&
-               touchEventIsDrag;
+        return m_touchPolicy.shouldIntercept(target, action == MotionEvent.ACTION_MOVE, event.getX(), event.getY(),
+                                             m_ignoreEvents, m_state == SlideState.Dragging);
     }
 
     @Override
     public boolean onTouchEvent(CoordinatorLayout parent, V child, MotionEvent event)
     {
-        if (!child.isShown())
+        if (!isShownOrRevealable(child))
+            return false;
+
+        if (m_coordinator != null && !m_coordinator.ownsGesture(this, event))
             return false;
 
         int action = event.getActionMasked();
+        if (m_scrimTouched)
+        {
+            onScrimTouchEvent(event);
+            return true;
+        }
+
         if (m_state == SlideState.Dragging && action == MotionEvent.ACTION_DOWN)
             return true;
 
         if (m_viewDragHelper != null)
+        {
+            m_dragEvent = event;
             m_viewDragHelper.processTouchEvent(event);
+            m_dragEvent = null;
 
-        if (action == MotionEvent.ACTION_DOWN)
-            reset();
-
-        if (m_velocityTracker == null)
-            m_velocityTracker = VelocityTracker.obtain();
+            if (m_movementMode == MovementMode.Translation && action == MotionEvent.ACTION_MOVE)
+                dragWithTranslation(child, event);
+        }
 
-        m_velocityTracker.addMovement(event);
+        trackMovement(event);
 
         // The ViewDragHelper tries to capture only the top-most View. We have to explicitly tell it
         // to capture the sliding sheet in case it is not captured and the touch slop is passed.
         if (action == MotionEvent.ACTION_MOVE && !m_ignoreEvents && touchEventIndicatesDrag(event))
-            m_viewDragHelper.captureChildView(child, event.getPointerId(event.getActionIndex()));
+            captureChild(child, event.getPointerId(event.getActionIndex()), event);
+
+        if (m_gestureTracker != null && (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL))
+            m_gestureTracker.onTouchReleased(child, m_state, event.getEventTime(), m_performanceListener);
 
         return m_hideable && m_edgeDragEnabled && m_viewDragHelper.isEdgeTouched(m_slideEdge.getDragEdge());
     }
@@ -327,9 +641,14 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
     public boolean onStartNestedScroll(@NonNull CoordinatorLayout coordinatorLayout, @NonNull V child, @NonNull View directTargetChild, @NonNull View target, int axes, int type)
     {
         m_lastNestedScrollDelta = 0;
+        m_nestedFlingVelocity = 0;
         m_nestedScrolled = false;
 
-        return (axes & (m_slideIsVertical ? ViewCompat.SCROLL_AXIS_VERTICAL : ViewCompat.SCROLL_AXIS_HORIZONTAL)) != 0;
+        boolean accepted = (axes & (m_slideIsVertical ? ViewCompat.SCROLL_AXIS_VERTICAL : ViewCompat.SCROLL_AXIS_HORIZONTAL)) != 0;
+        if (accepted)
+            cancelEngineSettling();
+
+        return accepted;
     }
 
     @Override
@@ -345,8 +664,8 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
         if (m_needsOffsetUpdate)
             setChildOffsetRange(child, m_peekSize);
 
-        int expandedPostion = getPositionForState(SlideState.Expanded, child);
-        int collapsedPosition = getPositionForState(SlideState.Collapsed, child);
+        int expandedPostion = m_geometry.getExpandedPosition();
+        int collapsedPosition = m_geometry.getCollapsedPosition();
 
         if (delta > 0 && m_slideIsReversed && !canScroll(target, SCROLL_RIGHT_OR_DOWN, true))
         {
@@ -417,6 +736,11 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
     @Override
     public void onStopNestedScroll(@NonNull CoordinatorLayout coordinatorLayout, @NonNull V child, @NonNull View target, int type)
     {
+        // The scrolling child may keep the release from reaching the sheet, so the end of its
+        // touch scroll releases the gesture; the state changes below can then finish it
+        if (m_gestureTracker != null && type == ViewCompat.TYPE_TOUCH)
+            m_gestureTracker.onTouchReleased(child, m_state, SystemClock.uptimeMillis(), m_performanceListener);
+
         if (m_needsOffsetUpdate)
             setChildOffsetRange(child, m_peekSize);
 
@@ -429,24 +753,27 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
         if (!m_nestedScrolled || getNestedScrollingChild() == null)
             return;
 
+        // The scrolling child reports the fling before the nested scroll stops; without one the
+        // sheet was let go of without any speed, or the fling was never offered to the sheet
+        float velocity = m_nestedFlingVelocity != 0 ? m_nestedFlingVelocity : getVelocity();
+
         SlideState targetState = SlideState.Collapsed;
 
-        if ((m_lastNestedScrollDelta > 0 && !m_slideIsReversed) || m_lastNestedScrollDelta < 0 && m_slideIsReversed)
+        // A positive delta moves the sheet towards lower positions
+        if (m_releasePredictor != null)
+            targetState = predictReleaseState(child, velocity);
+        else if (m_geometry.getDetentCount() > 0)
+            targetState = shouldHide(child, getVelocity()) ? SlideState.Hidden : findReleaseState(child, -m_lastNestedScrollDelta);
+        else if ((m_lastNestedScrollDelta > 0 && !m_slideIsReversed) || m_lastNestedScrollDelta < 0 && m_slideIsReversed)
             targetState = SlideState.Expanded;
         else if (shouldHide(child, getVelocity()))
             targetState = SlideState.Hidden;
         else if (m_lastNestedScrollDelta == 0 && childCloserToExpandedState(child)) // Not moving
             targetState = SlideState.Expanded;
 
-        int position = getPositionForState(targetState, child);
-
-        int finalLeft = m_slideIsVertical ? child.getLeft() : position;
-        int finalTop = m_slideIsVertical ? position : child.getTop();
-
-        if (m_viewDragHelper.smoothSlideViewTo(child, finalLeft, finalTop))
+        if (startSettling(child, targetState, velocity, false))
         {
             setStateInternal(SlideState.Settling);
-            ViewCompat.postOnAnimation(child, new SettleRunnable(child, targetState));
         }
         else
         {
@@ -454,11 +781,17 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
         }
 
         m_nestedScrolled = false;
+        m_nestedFlingVelocity = 0;
     }
 
     @Override
     public boolean onNestedPreFling(CoordinatorLayout coordinatorLayout, V child, View target, float velocityX, float velocityY)
     {
+        // The scrolling content moves against the sheet, so a positive fling moves the sheet
+        // towards lower positions
+        if (target == getNestedScrollingChild())
+            m_nestedFlingVelocity = -(m_slideIsVertical ? velocityY : velocityX);
+
         //TODO: Is this behavior correct? We need to thorougly test this out
         return target == getNestedScrollingChild() &&
                 (m_state != SlideState.Expanded || super.onNestedPreFling(coordinatorLayout, child, target, velocityX, velocityY));
@@ -478,6 +811,7 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
             if (!m_peekSizeAuto)
             {
                 m_peekSizeAuto = true;
+                m_geometry.invalidate();
                 needsLayout = true;
             }
         }
@@ -491,7 +825,7 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
             needsLayout = true;
         }
 
-        if (needsLayout && m_state == SlideState.Collapsed)
+        if (needsLayout && (m_state == SlideState.Collapsed || m_state == SlideState.Anchored))
         {
             V child = getChild();
             if (child != null)
@@ -510,6 +844,72 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
         return m_peekSizeAuto ? PEEK_SIZE_AUTO : m_peekSize;
     }
 
+    /**
+     * Sets the detents, which are extra resting positions between the collapsed and expanded
+     * states.  A sheet resting at a detent is in the {@link SlideState#Anchored} state, and
+     * {@link #getDetentIndex()} tells which detent it is at.  Detents that do not fall between
+     * the collapsed and expanded positions are ignored.
+     *
+     * @param fractions The fraction of the parent that the sheet covers at each detent, from 0 to 1
+     */
+    public void setDetents(float... fractions)
+    {
+        m_geometry.setDetentFractions(fractions);
+        onDetentsChanged();
+    }
+
+    /**
+     * Sets the detents, which are extra resting positions between the collapsed and expanded
+     * states, as the size of the sheet that is visible at each one.
+     *
+     * @param sizes The visible size of the sheet at each detent, in pixels
+     * @see #setDetents(float...)
+     */
+    public void setDetentSizes(int... sizes)
+    {
+        m_geometry.setDetentSizes(sizes);
+        onDetentsChanged();
+    }
+
+    /**
+     * Removes all detents.  A sheet resting at a detent will be collapsed.
+     */
+    public void clearDetents()
+    {
+        m_geometry.setDetentFractions(null);
+        onDetentsChanged();
+    }
+
+    /**
+     * @return The number of detents that fit between the collapsed and expanded positions.  This
+     *         is only known once the sheet has been laid out.
+     */
+    public int getDetentCount()
+    {
+        return m_geometry.getDetentCount();
+    }
+
+    /**
+     * @return The index of the detent the sheet is resting at, or {@link #NO_DETENT} if the sheet
+     *         is not in the {@link SlideState#Anchored} state.  Detents are ordered from the one
+     *         closest to collapsed to the one closest to expanded.
+     */
+    public int getDetentIndex()
+    {
+        return m_state == SlideState.Anchored ? m_detentIndex : NO_DETENT;
+    }
+
+    private void onDetentsChanged()
+    {
+        V child = getChild();
+        if (child == null)
+            return;
+
+        setChildOffsetRange(child, m_geometry.getPeekSize());
+        if (m_state == SlideState.Anchored)
+            child.requestLayout();
+    }
+
     /**
      * Sets whether this sliding sheet can hide when it is swiped down.
      *
@@ -579,397 +979,1925 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
     }
 
     /**
-     * Sets a callback to be notified of sliding sheet events.
+     * Sets the engine used to settle the sheet after it is released, or after the state is changed
+     * with {@link #setState(SlideState)}.  By default (or when this is set to null) the sheet
+     * settles with the {@link ViewDragHelper}'s fixed duration animation, which ignores the
+     * velocity the sheet was released with.  The positions the engine produces are kept within
+     * the range the sheet can be dragged in, so an engine that overshoots its target stops at
+     * the expanded (or hidden) position instead of passing it.
      *
-     * @param callback The callback to notify when sliding sheet events occur.
-     */
-    public void setSlidingSheetCallback(ISlidingSheetCallback callback)
-    {
-        m_callback = callback;
-    }
-
-    /**
-     * Sets the state of the sheet. The sheet will transition to that state with
-     * animation.
+     * @param engine The settle engine, such as a
+     *               {@link com.magouyaware.slidingsheetbehavior.settle.SpringSettleEngine}, or null
      */
-    public final void setState(final SlideState stateRequest)
+    public void setSettleEngine(ISettleEngine engine)
     {
-        if (stateRequest == m_state)
+        if (m_settleEngine == engine)
             return;
 
-        //Quick sanitation check to make sure we never set to a bad state
-        final SlideState finalState = (stateRequest == SlideState.Hidden && !m_hideable) ? SlideState.Collapsed : stateRequest;
-
-        if (m_childRef == null)
+        if (m_settleDriver.isActive() && m_settleDriver.usesEngine())
         {
-            // The view is not laid out yet; modify m_state and let onLayoutChild handle it later
-            if (finalState == SlideState.Collapsed || finalState == SlideState.Expanded || finalState == SlideState.Hidden)
-                m_state = finalState;
-
-            return;
-        }
+            // Hand the settle over to the new engine rather than leaving the sheet stranded
+            SlideState targetState = m_settleDriver.getTargetState();
+            View child = getChild();
+            cancelEngineSettling();
+            m_settleEngine = engine;
 
-        final V child = getChild();
-        if (child == null)
-            return;
+            if (child != null && !startSettling(child, targetState, 0, false))
+                setStateInternal(targetState);
 
-        // Start the animation; wait until a pending layout if there is one.
-        ViewParent parent = child.getParent();
-        if (parent == null || !parent.isLayoutRequested() || !ViewCompat.isAttachedToWindow(child))
-        {
-            startSettlingAnimation(child, finalState);
             return;
         }
 
-        child.post(new Runnable()
-        {
-            @Override
-            public void run()
-            {
-                startSettlingAnimation(child, finalState);
-            }
-        });
+        m_settleEngine = engine;
     }
 
     /**
-     * Gets the current state of the sliding sheet.
+     * @return The engine used to settle the sheet, or null if the {@link ViewDragHelper} is used
      */
-    public final SlideState getState()
+    public ISettleEngine getSettleEngine()
     {
-        return m_state;
+        return m_settleEngine;
     }
 
-    private void enableEdgeDragInternal(boolean enabled)
+    /**
+     * Sets the predictor that decides where the sheet settles when it is released.  The sheet
+     * settles at whichever state (or detent) is closest to where the predictor expects a fling to
+     * come to rest, so a fast fling can carry the sheet past a detent or all the way to hidden.
+     * A {@link com.magouyaware.slidingsheetbehavior.release.SplineReleasePredictor} built from
+     * the display density and {@link ViewConfiguration#getScrollFriction()} follows the
+     * platform's fling deceleration.  By default (or when this is set to null) the sheet settles
+     * at the next state in the direction it was moving, and only hides when a short projection
+     * of the release velocity carries it far enough into the hidden range.
+     *
+     * @param predictor The release predictor, or null to only use the direction of the release
+     */
+    public void setReleasePredictor(IReleasePredictor predictor)
     {
-        if (m_viewDragHelper != null)
-            m_viewDragHelper.setEdgeTrackingEnabled(enabled ? m_slideEdge.getDragEdge() : NO_EDGE_DRAG);
+        m_releasePredictor = predictor;
     }
 
-    private V getChild()
+    /**
+     * @return The predictor that decides where the sheet settles when it is released, or null if
+     *         only the direction of the release is used
+     */
+    public IReleasePredictor getReleasePredictor()
     {
-        return m_childRef != null ? m_childRef.get() : null;
+        return m_releasePredictor;
     }
 
-    private View getNestedScrollingChild()
+    /**
+     * Sets a listener to receive frame timing for each gesture on the sheet, such as the number
+     * of frames that missed their deadline.  Timing is only collected while a listener is set.
+     *
+     * @param listener The listener, or null to stop collecting frame timing
+     */
+    public void setSheetPerformanceListener(ISheetPerformanceListener listener)
     {
-        return m_nestedScrollingChildRef != null ? m_nestedScrollingChildRef.get() : null;
-    }
+        m_performanceListener = listener;
 
-    private CoordinatorLayout getParent()
-    {
-        return m_parentRef != null ? m_parentRef.get() : null;
+        if (listener != null && m_gestureTracker == null)
+        {
+            m_gestureTracker = new SheetGestureTracker();
+        }
+        else if (listener == null && m_gestureTracker != null)
+        {
+            m_gestureTracker.cancel();
+            m_gestureTracker = null;
+        }
     }
 
-    private int getChildPosition(View childView)
+    /**
+     * Sets when slide events are delivered to callbacks.  With {@link SlideDispatchMode#PerFrame},
+     * a callback sees at most one {@link ISlidingSheetCallback#onSlide(View, float)} per frame,
+     * for the latest position of the sheet, no matter how many times the sheet moved during that
+     * frame.  State changes are never dropped, and a pending slide event is always delivered before
+     * the state change that follows it.
+     *
+     * @param mode The dispatch mode.  The default is {@link SlideDispatchMode#Immediate}.
+     */
+    public void setSlideDispatchMode(@NonNull SlideDispatchMode mode)
     {
-        return m_slideIsVertical ? childView.getTop() : childView.getLeft();
+        m_slideDispatchMode = mode;
+        if (mode == SlideDispatchMode.Immediate)
+            flushPendingSlide();
     }
 
-    private int getChildEndPosition(View childView)
+    /**
+     * @return When slide events are delivered to callbacks
+     */
+    public SlideDispatchMode getSlideDispatchMode()
     {
-        return m_slideIsVertical ? childView.getBottom() : childView.getRight();
+        return m_slideDispatchMode;
     }
 
-    private void offsetChildView(View childView, int offset)
+    /**
+     * Sets whether the sheet should be rendered into a hardware layer while it is dragging or
+     * settling.  Moving the sheet then only needs the layer to be composited at its new position,
+     * instead of redrawing all of the sheet's content every frame.  The sheet's original layer type
+     * is restored once the sheet comes to rest.
+     *
+     * <p>If the sheet's content is laid out again while it is moving, the layer is dropped for the
+     * rest of that motion, since a layer whose content keeps changing has to be re-rendered every
+     * frame anyway.</p>
+     *
+     * @param enabled True to use a hardware layer while the sheet is moving, false otherwise
+     */
+    public void setHardwareLayerWhileMoving(boolean enabled)
     {
-        if (childView == null)
-            return;
+        m_hardwareLayerWhileMoving = enabled;
 
-        if (m_slideIsVertical)
-            ViewCompat.offsetTopAndBottom(childView, offset);
-        else
-            ViewCompat.offsetLeftAndRight(childView, offset);
+        View child = getChild();
+        if (!enabled && child != null)
+            restoreMotionLayer(child);
     }
 
-    private int getViewSize(View view)
+    /**
+     * @return True if the sheet is rendered into a hardware layer while it is moving, false otherwise
+     */
+    public boolean isHardwareLayerWhileMoving()
     {
-        return m_slideIsVertical ? view.getHeight() : view.getWidth();
+        return m_hardwareLayerWhileMoving;
     }
 
-    private int calculateAutoPeekSize(CoordinatorLayout parent, V child)
+    /**
+     * Sets the provider of content that is inflated the first time the sheet leaves its collapsed
+     * or hidden state, such as when a drag starts.  The content is inflated off of the main
+     * thread where possible, so it is usually ready by the time the sheet has been dragged or
+     * settled open.  Once it has been added, the nested scrolling child is searched for again in
+     * the layout that adding the content causes.
+     *
+     * <p>The sheet must be a {@link ViewGroup}.  To avoid a jump when the content arrives, give
+     * the sheet a fixed or {@code match_parent} size along the slide axis rather than wrapping its
+     * content.</p>
+     *
+     * <p>Changing the provider removes the content that the previous provider added, and drops
+     * any of its content that is still being inflated.</p>
+     *
+     * @param provider The content provider, or null to remove the provider's content
+     * @throws IllegalStateException If the sheet has been laid out and isn't a {@link ViewGroup}.
+     *                               A sheet that hasn't been laid out yet is checked during its
+     *                               first layout instead.
+     */
+    public void setContentProvider(@Nullable ISheetContentProvider provider)
     {
-        // I didn't like the original implementation for calculating an auto peek size. In certain
-        // situations (like when in landscape mode) the calculated value would be negative and then
-        // default to the min, so I created my own...
-        int parentSize = getViewSize(parent);
-        int peekSize = parentSize - (parentSize * 9 / 16);
+        if (m_contentProvider == provider)
+            return;
 
-        //Make sure the peek is not larger than the child
-        int childSize = getViewSize(child);
-        return peekSize < childSize ? peekSize : childSize;
+        V child = getChild();
+        if (provider != null && child != null && !(child instanceof ViewGroup))
+            throw new IllegalStateException("A sheet with a content provider must be a ViewGroup");
+
+        // Inflations that are still running for the previous provider are ignored when they finish
+        m_contentGeneration++;
+        m_contentProvider = provider;
+        m_contentRequested = false;
+        m_contentInflated = false;
+        removeContent();
+
+        if (child != null)
+            requestContent(child);
     }
 
-    private void setStateInternal(SlideState stateRequest)
-    {
+    /**
+     * @return The provider of the sheet's lazily inflated content, or null if there isn't one
+     */
+    public ISheetContentProvider getContentProvider()
+    {
+        return m_contentProvider;
+    }
+
+    /**
+     * @return True once the content from the {@link ISheetContentProvider} has been added to the sheet
+     */
+    public boolean isContentInflated()
+    {
+        return m_contentInflated;
+    }
+
+    /**
+     * Sets whether the sheet should be made {@link View#GONE} while it is hidden, so that it
+     * isn't measured, laid out or drawn while it is off screen.  The sheet is made visible again
+     * as soon as its state is changed or an edge drag starts, and settles once it has been laid
+     * out again.  Only a sheet that was made gone by the behavior is made visible again.
+     *
+     * @param enabled True to make the sheet gone while it is hidden, false otherwise
+     */
+    public void setGoneWhenHidden(boolean enabled)
+    {
+        if (m_goneWhenHidden == enabled)
+            return;
+
+        m_goneWhenHidden = enabled;
+
+        View child = getChild();
+        if (child != null)
+            updateHiddenVisibility(child);
+    }
+
+    /**
+     * @return True if the sheet is made gone while it is hidden
+     */
+    public boolean isGoneWhenHidden()
+    {
+        return m_goneWhenHidden;
+    }
+
+    /**
+     * Sets how the sheet is moved.  With {@link MovementMode#Translation}, the sheet keeps its
+     * layout position and is moved with its translation, so it can follow a slow drag with
+     * sub-pixel precision and moving it doesn't change its layout bounds.  The sheet always
+     * settles with a settle engine in that mode, because the {@link ViewDragHelper} can only
+     * move views by whole pixels; a {@link SpringSettleEngine} is used if no engine has been set.
+     * While the sheet has a scrim, its layout position follows it to the nearest pixel (see
+     * {@link #setScrimOpacity(float)}).
+     *
+     * @param mode The movement mode.  The default is {@link MovementMode#Offset}.
+     */
+    public void setMovementMode(@NonNull MovementMode mode)
+    {
+        if (m_movementMode == mode)
+            return;
+
+        V child = getChild();
+        if (child == null)
+        {
+            m_movementMode = mode;
+            return;
+        }
+
+        // Carry the current position and any engine settle over to the new mode
+        SlideState settleTarget = m_settleDriver.isActive() && m_settleDriver.usesEngine() ? m_settleDriver.getTargetState() : null;
+        if (settleTarget != null)
+            cancelEngineSettling();
+
+        float position = getExactChildPosition(child);
+        if (m_slideIsVertical)
+            child.setTranslationY(0);
+        else
+            child.setTranslationX(0);
+
+        m_movementMode = mode;
+        setChildPosition(child, position);
+
+        if (settleTarget != null && !startSettling(child, settleTarget, 0, false))
+            setStateInternal(settleTarget);
+    }
+
+    /**
+     * @return How the sheet is moved
+     */
+    public MovementMode getMovementMode()
+    {
+        return m_movementMode;
+    }
+
+    /**
+     * Sets the color of the scrim that is drawn behind the sheet.  The alpha of the color is
+     * ignored; use {@link #setScrimOpacity(float)} to make the scrim visible.
+     *
+     * @param color The color of the scrim.  The default is black.
+     */
+    public void setScrimColor(@ColorInt int color)
+    {
+        if (m_scrimColor == color)
+            return;
+
+        m_scrimColor = color;
+        invalidateScrim();
+    }
+
+    /**
+     * @return The color of the scrim that is drawn behind the sheet
+     */
+    @ColorInt
+    public int getScrimColor()
+    {
+        return m_scrimColor;
+    }
+
+    /**
+     * Sets the opacity of the scrim that is drawn behind the sheet when it is expanded.  The
+     * scrim fades in as the sheet moves from collapsed to expanded, and is not drawn at all while
+     * the sheet is collapsed or hidden.  The {@link CoordinatorLayout} draws the scrim over the
+     * siblings below the sheet, so there is no need for a separate view to dim the content behind
+     * the sheet.
+     *
+     * <p>The scrim is only kept out of the area covered by the sheet when
+     * {@link View#isOpaque()} is true for the sheet, which usually takes an opaque background.
+     * Otherwise the scrim is drawn under the whole sheet as well, and shows through any part of
+     * the sheet that isn't opaque.</p>
+     *
+     * <p>The {@link CoordinatorLayout} leaves out the sheet's layout bounds rather than where the
+     * sheet is drawn, so in {@link MovementMode#Translation} the layout position of a sheet with a
+     * scrim follows the sheet to the nearest pixel, and only the remainder is kept in the
+     * translation.</p>
+     *
+     * @param opacity The opacity of the scrim, from 0 to 1.  The default is 0, which disables the scrim.
+     */
+    public void setScrimOpacity(@FloatRange(from = 0, to = 1) float opacity)
+    {
+        opacity = Math.max(0, Math.min(1, opacity));
+        if (m_scrimOpacity == opacity)
+            return;
+
+        m_scrimOpacity = opacity;
+        invalidateScrim();
+
+        // Move the sheet's layout position to where it is drawn, now that the scrim depends on it
+        V child = getChild();
+        if (child != null && m_movementMode == MovementMode.Translation && m_geometry.isValid())
+            setChildPosition(child, getExactChildPosition(child));
+    }
+
+    /**
+     * @return The opacity of the scrim when the sheet is expanded
+     */
+    public float getScrimOpacity()
+    {
+        return m_scrimOpacity;
+    }
+
+    /**
+     * Sets what happens when the scrim is touched.  Unless this is {@link ScrimTouchAction#None},
+     * touches on the scrim don't reach the views below it while the scrim is visible.
+     *
+     * @param action The scrim touch action.  The default is {@link ScrimTouchAction#None}.
+     */
+    public void setScrimTouchAction(@NonNull ScrimTouchAction action)
+    {
+        m_scrimTouchAction = action;
+    }
+
+    /**
+     * @return What happens when the scrim is touched
+     */
+    public ScrimTouchAction getScrimTouchAction()
+    {
+        return m_scrimTouchAction;
+    }
+
+    @Override
+    @ColorInt
+    public int getScrimColor(CoordinatorLayout parent, V child)
+    {
+        return m_scrimColor;
+    }
+
+    @Override
+    @FloatRange(from = 0, to = 1)
+    public float getScrimOpacity(CoordinatorLayout parent, V child)
+    {
+        return getScrimOpacityForOffset(m_slideOffset);
+    }
+
+    @Override
+    public boolean blocksInteractionBelow(CoordinatorLayout parent, V child)
+    {
+        return blocksScrimTouches();
+    }
+
+    /**
+     * Binds a property of a view to the slide offset of the sheet, so that the property follows
+     * the sheet as it moves without an {@link ISlidingSheetCallback}.  Bound properties are set
+     * right before slide events are delivered, and when the sheet is laid out.  Bindings hold
+     * their target weakly, and targets that aren't attached to a window are skipped.
+     *
+     * @param target       The view whose property follows the sheet
+     * @param property     The property to set
+     * @param fromOffset   The slide offset, from -1 to 1, at which the property is {@code fromValue}
+     * @param toOffset     The slide offset, from -1 to 1, at which the property is {@code toValue}
+     * @param fromValue    The value of the property at {@code fromOffset} and beyond
+     * @param toValue      The value of the property at {@code toOffset} and beyond
+     * @param interpolator Eases the value between the two offsets, or null for a linear change
+     */
+    public void bind(@NonNull View target, @NonNull SlideProperty property, float fromOffset, float toOffset,
+                     float fromValue, float toValue, @Nullable TimeInterpolator interpolator)
+    {
+        m_bindings.add(target, property, fromOffset, toOffset, fromValue, toValue, interpolator);
+
+        if (getChild() != null)
+            m_bindings.apply(m_slideOffset);
+    }
+
+    /**
+     * Binds a property of a view to the slide offset of the sheet, changing linearly between the
+     * two offsets.
+     *
+     * @see #bind(View, SlideProperty, float, float, float, float, TimeInterpolator)
+     */
+    public void bind(@NonNull View target, @NonNull SlideProperty property, float fromOffset, float toOffset,
+                     float fromValue, float toValue)
+    {
+        bind(target, property, fromOffset, toOffset, fromValue, toValue, null);
+    }
+
+    /**
+     * Removes every binding for the {@code target}.  The target's properties are left as they are.
+     */
+    public void unbind(@NonNull View target)
+    {
+        m_bindings.remove(target);
+    }
+
+    /**
+     * Removes every binding.  The targets' properties are left as they are.
+     */
+    public void clearBindings()
+    {
+        m_bindings.clear();
+    }
+
+    /**
+     * Sets a callback to be notified of sliding sheet events.  This replaces the callback from
+     * the previous call to this method, but leaves callbacks registered with
+     * {@link #addSlidingSheetCallback(ISlidingSheetCallback)} alone.
+     *
+     * @param callback The callback to notify when sliding sheet events occur.
+     */
+    public void setSlidingSheetCallback(ISlidingSheetCallback callback)
+    {
+        if (m_callback == callback)
+            return;
+
+        if (m_callback != null)
+            removeSlidingSheetCallback(m_callback);
+
+        m_callback = callback;
+        if (callback != null)
+            addSlidingSheetCallback(callback);
+    }
+
+    /**
+     * Adds a callback to be notified of sliding sheet events.  It is safe to call this while
+     * callbacks are being notified; the new callback will be notified starting with the next event.
+     *
+     * @param callback The callback to notify when sliding sheet events occur.
+     */
+    public void addSlidingSheetCallback(@NonNull ISlidingSheetCallback callback)
+    {
+        for (ISlidingSheetCallback existing : m_callbacks)
+        {
+            if (existing == callback)
+                return;
+        }
+
+        int count = m_callbacks.length;
+        ISlidingSheetCallback[] callbacks = new ISlidingSheetCallback[count + 1];
+        System.arraycopy(m_callbacks, 0, callbacks, 0, count);
+        callbacks[count] = callback;
+        m_callbacks = callbacks;
+    }
+
+    /**
+     * Removes a callback that was added with {@link #addSlidingSheetCallback(ISlidingSheetCallback)}.
+     * It is safe to call this while callbacks are being notified; the removed callback may still
+     * receive the event that is currently being dispatched.
+     *
+     * @param callback The callback to remove.
+     */
+    public void removeSlidingSheetCallback(@NonNull ISlidingSheetCallback callback)
+    {
+        int count = m_callbacks.length;
+        for (int i = 0; i < count; i++)
+        {
+            if (m_callbacks[i] != callback)
+                continue;
+
+            if (count == 1)
+            {
+                m_callbacks = NO_CALLBACKS;
+            }
+            else
+            {
+                ISlidingSheetCallback[] callbacks = new ISlidingSheetCallback[count - 1];
+                System.arraycopy(m_callbacks, 0, callbacks, 0, i);
+                System.arraycopy(m_callbacks, i + 1, callbacks, i, count - i - 1);
+                m_callbacks = callbacks;
+            }
+
+            if (m_callback == callback)
+                m_callback = null;
+
+            return;
+        }
+    }
+
+    /**
+     * Gets the last known offset of the sheet, without having to listen for
+     * {@link ISlidingSheetCallback#onSlide(View, float)}.  This is cheap enough to query while
+     * drawing.
+     *
+     * @return The offset of the sheet within [-1,1] range. From 0 to 1 the sheet is between
+     *         collapsed and expanded states and from -1 to 0 it is between hidden and collapsed states.
+     */
+    public float getSlideOffset()
+    {
+        return m_slideOffset;
+    }
+
+    /**
+     * Sets the state of the sheet. The sheet will transition to that state with
+     * animation.  Use {@link #setDetent(int)} to move the sheet to a detent.
+     */
+    public final void setState(final SlideState stateRequest)
+    {
+        if (stateRequest == SlideState.Anchored)
+            throw new IllegalArgumentException("Use setDetent() to anchor the sheet at a detent");
+
+        //Quick sanitation check to make sure we never set to a bad state
+        SlideState finalState = (stateRequest == SlideState.Hidden && !m_hideable) ? SlideState.Collapsed : stateRequest;
+        if (isHeadedTo(finalState, NO_DETENT))
+            return;
+
+        requestSettle(finalState, NO_DETENT);
+    }
+
+    /**
+     * Moves the sheet to one of the detents set with {@link #setDetents(float...)} or
+     * {@link #setDetentSizes(int...)}, with animation.  The sheet is in the
+     * {@link SlideState#Anchored} state once it gets there.
+     *
+     * @param index The index of the detent, where 0 is the detent closest to collapsed
+     */
+    public final void setDetent(int index)
+    {
+        if (index < 0)
+            throw new IllegalArgumentException("Illegal detent index: " + index);
+
+        if (isHeadedTo(SlideState.Anchored, index))
+            return;
+
+        requestSettle(SlideState.Anchored, index);
+    }
+
+    /**
+     * Gets the state that the sheet is headed to.  This is the latest state requested with
+     * {@link #setState(SlideState)} or {@link #setDetent(int)} if it is waiting for a layout,
+     * the state the sheet is settling into if it is settling, or the current state otherwise.
+     */
+    public final SlideState getTargetState()
+    {
+        if (m_pendingSettle.isPending())
+            return m_pendingSettle.getState();
+
+        if (m_settleDriver.isActive())
+            return m_settleDriver.getTargetState();
+
+        return m_state;
+    }
+
+    private boolean isHeadedTo(SlideState state, int detentIndex)
+    {
+        if (getTargetState() != state)
+            return false;
+
+        if (state != SlideState.Anchored)
+            return true;
+
+        int targetIndex = m_pendingSettle.isPending() ? m_pendingSettle.getDetentIndex() : m_detentIndex;
+        return targetIndex == detentIndex;
+    }
+
+    private void requestSettle(SlideState finalState, int detentIndex)
+    {
+        if (m_childRef == null)
+        {
+            // The view is not laid out yet; modify m_state and let onLayoutChild handle it later
+            if (finalState.isMoving())
+                return;
+
+            m_state = finalState;
+            if (finalState == SlideState.Anchored)
+                m_detentIndex = detentIndex;
+
+            return;
+        }
+
+        V child = getChild();
+        if (child == null)
+            return;
+
+        // Bringing back a sheet that was gone requests a layout, so the settle waits for the
+        // sheet's geometry to be brought up to date
+        revealHiddenSheet(child);
+
+        // Start the animation; wait until a pending layout if there is one.
+        ViewParent parent = child.getParent();
+        if (parent == null || !parent.isLayoutRequested() || !ViewCompat.isAttachedToWindow(child))
+        {
+            m_pendingSettle.cancel();
+            startSettlingAnimation(child, finalState, detentIndex);
+            return;
+        }
+
+        m_pendingSettle.post(child, finalState, detentIndex);
+    }
+
+    /**
+     * Gets the current state of the sliding sheet.
+     */
+    public final SlideState getState()
+    {
+        return m_state;
+    }
+
+    /**
+     * Sets the view that the sheet coordinates nested scrolling with, instead of searching the
+     * sheet's hierarchy for one.  This is useful for deep hierarchies, or when the first
+     * {@link NestedScrollingChild} in the sheet isn't the one that should drive the sheet.
+     *
+     * @param view The nested scrolling view, or null to go back to finding it automatically
+     */
+    public void setNestedScrollingChild(View view)
+    {
+        if (view != null)
+            unwatchHierarchy();
+
+        m_nestedScrollingChildExplicit = view != null;
+        m_nestedScrollingChildDirty = view == null;
+        m_nestedScrollingChildRef = view != null ? new WeakReference<>(view) : null;
+    }
+
+    /**
+     * Forces the nested scrolling child to be searched for again during the next layout.  The
+     * resolved child is cached between layouts, and the cache is invalidated whenever a view is
+     * added to or removed from one of the view groups that were searched.  Those groups get an
+     * {@link ViewGroup.OnHierarchyChangeListener} from the behavior, so call this after setting
+     * another listener on one of them, or after other changes to the sheet that affect which view
+     * should scroll.  Has no effect if {@link #setNestedScrollingChild(View)} was given a view.
+     */
+    public void invalidateNestedScrollingChild()
+    {
+        if (m_nestedScrollingChildExplicit)
+            return;
+
+        m_nestedScrollingChildDirty = true;
+
+        V child = getChild();
+        if (child != null)
+            child.requestLayout();
+    }
+
+    private void enableEdgeDragInternal(boolean enabled)
+    {
+        if (m_viewDragHelper != null)
+            m_viewDragHelper.setEdgeTrackingEnabled(enabled ? m_slideEdge.getDragEdge() : NO_EDGE_DRAG);
+    }
+
+    private V getChild()
+    {
+        return m_childRef != null ? m_childRef.get() : null;
+    }
+
+    @VisibleForTesting
+    View getNestedScrollingChild()
+    {
+        return m_nestedScrollingChildRef != null ? m_nestedScrollingChildRef.get() : null;
+    }
+
+    private CoordinatorLayout getParent()
+    {
+        return m_parentRef != null ? m_parentRef.get() : null;
+    }
+
+    private int getChildPosition(View childView)
+    {
+        if (m_movementMode == MovementMode.Translation)
+            return Math.round(getExactChildPosition(childView));
+
+        return m_slideIsVertical ? childView.getTop() : childView.getLeft();
+    }
+
+    private float getExactChildPosition(View childView)
+    {
+        if (m_movementMode == MovementMode.Offset)
+            return getChildPosition(childView);
+
+        return m_slideIsVertical ? childView.getTop() + childView.getTranslationY() : childView.getLeft() + childView.getTranslationX();
+    }
+
+    private void offsetChildView(View childView, int offset)
+    {
+        if (childView == null)
+            return;
+
+        if (m_movementMode == MovementMode.Translation && !keepsLayoutWithTranslation())
+        {
+            if (m_slideIsVertical)
+                childView.setTranslationY(childView.getTranslationY() + offset);
+            else
+                childView.setTranslationX(childView.getTranslationX() + offset);
+        }
+        else if (m_slideIsVertical)
+        {
+            ViewCompat.offsetTopAndBottom(childView, offset);
+        }
+        else
+        {
+            ViewCompat.offsetLeftAndRight(childView, offset);
+        }
+    }
+
+    /**
+     * Moves the child to the {@code position}, which is rounded to a whole pixel unless the
+     * sheet is in translation mode
+     */
+    private void setChildPosition(View childView, float position)
+    {
+        if (m_movementMode == MovementMode.Offset)
+        {
+            offsetChildView(childView, Math.round(position) - getChildPosition(childView));
+            return;
+        }
+
+        int layoutPosition = m_slideIsVertical ? childView.getTop() : childView.getLeft();
+        if (keepsLayoutWithTranslation())
+        {
+            int offset = Math.round(position) - layoutPosition;
+            if (offset != 0)
+            {
+                if (m_slideIsVertical)
+                    ViewCompat.offsetTopAndBottom(childView, offset);
+                else
+                    ViewCompat.offsetLeftAndRight(childView, offset);
+
+                layoutPosition += offset;
+            }
+        }
+
+        if (m_slideIsVertical)
+            childView.setTranslationY(position - layoutPosition);
+        else
+            childView.setTranslationX(position - layoutPosition);
+    }
+
+    /**
+     * @return True if the whole pixels of the sheet's position are kept in its layout position in
+     *         translation mode, rather than in its translation.  The scrim leaves out the sheet's
+     *         layout bounds, so they have to follow the sheet while there is a scrim.
+     */
+    private boolean keepsLayoutWithTranslation()
+    {
+        return m_scrimOpacity > 0;
+    }
+
+    private void captureChild(View child, int pointerId, MotionEvent event)
+    {
+        m_dragEvent = event;
+        m_viewDragHelper.captureChildView(child, pointerId);
+        m_dragEvent = null;
+    }
+
+    /**
+     * @return The coordinate along the slide axis of the pointer being dragged, or NaN if the
+     *         {@code event} is null or doesn't include that pointer
+     */
+    private float getDragTouch(MotionEvent event)
+    {
+        if (event == null || m_viewDragHelper == null)
+            return Float.NaN;
+
+        int index = event.findPointerIndex(m_viewDragHelper.getActivePointerId());
+        if (index < 0)
+            return Float.NaN;
+
+        return m_slideIsVertical ? event.getY(index) : event.getX(index);
+    }
+
+    /**
+     * Moves a sheet that is being dragged in translation mode so that it follows the touch
+     * exactly.  The {@link ViewDragHelper} only moves views by whole pixels, and drops movements
+     * smaller than a pixel, so it isn't used for this.
+     */
+    private void dragWithTranslation(View child, MotionEvent event)
+    {
+        if (m_viewDragHelper.getViewDragState() != ViewDragHelper.STATE_DRAGGING || m_viewDragHelper.getCapturedView() != child)
+            return;
+
+        float touch = getDragTouch(event);
+        if (Float.isNaN(touch) || Float.isNaN(m_dragAnchorTouch))
+            return;
+
+        float position = m_geometry.clampPosition(m_dragAnchorPosition + touch - m_dragAnchorTouch, m_hideable);
+        if (position != getExactChildPosition(child))
+        {
+            setChildPosition(child, position);
+            dispatchOnSlide(position);
+        }
+    }
+
+    private int getViewSize(View view)
+    {
+        return m_slideIsVertical ? view.getHeight() : view.getWidth();
+    }
+
+    private int calculateAutoPeekSize(CoordinatorLayout parent, V child)
+    {
+        // I didn't like the original implementation for calculating an auto peek size. In certain
+        // situations (like when in landscape mode) the calculated value would be negative and then
+        // default to the min, so I created my own...
+        int parentSize = getViewSize(parent);
+        int peekSize = parentSize - (parentSize * 9 / 16);
+
+        //Make sure the peek is not larger than the child
+        int childSize = getViewSize(child);
+        return peekSize < childSize ? peekSize : childSize;
+    }
+
+    private void setStateInternal(SlideState stateRequest)
+    {
         if (m_state == stateRequest)
             return;
 
-        //Prevent invalid states
-        m_state = (stateRequest == SlideState.Hidden && !m_hideable) ? SlideState.Collapsed : stateRequest;
+        //Prevent invalid states
+        m_state = (stateRequest == SlideState.Hidden && !m_hideable) ? SlideState.Collapsed : stateRequest;
+
+        View child = getChild();
+        if (child == null)
+            return;
+
+        // Slide events that happened before this state change must reach callbacks first
+        flushPendingSlide();
+        updateMotionLayer(child);
+        updateHiddenVisibility(child);
+        requestContent(child);
+
+        // Iterate over a local copy of the reference in case a callback adds or removes callbacks
+        ISlidingSheetCallback[] callbacks = m_callbacks;
+        for (int i = 0, count = callbacks.length; i < count; i++)
+            callbacks[i].onStateChanged(child, m_state);
+
+        if (m_gestureTracker != null)
+            m_gestureTracker.onStateChanged(child, m_state, m_performanceListener);
+    }
+
+    /**
+     * Makes a sheet that is resting in its hidden state gone, if that is enabled, or brings it
+     * back once it leaves the hidden state
+     */
+    private void updateHiddenVisibility(View child)
+    {
+        if (m_goneWhenHidden && m_state == SlideState.Hidden && !m_pendingSettle.isPending())
+        {
+            if (!m_goneWhileHidden && child.getVisibility() == View.VISIBLE)
+            {
+                m_goneWhileHidden = true;
+                child.setVisibility(View.GONE);
+            }
+
+            return;
+        }
+
+        revealHiddenSheet(child);
+    }
+
+    /**
+     * Fails the layout of a sheet that was given a content provider before it was laid out, but
+     * can't hold the content.  This is checked up front since the content is requested from
+     * state changes, which happen in the middle of drags and settles.
+     */
+    private void checkContentProvider(View child)
+    {
+        if (m_contentProvider != null && !(child instanceof ViewGroup))
+            throw new IllegalStateException("A sheet with a content provider must be a ViewGroup");
+    }
+
+    /**
+     * Starts inflating the content from the content provider once the sheet leaves its collapsed
+     * or hidden state.  Only the first request for each provider inflates anything.
+     */
+    private void requestContent(View child)
+    {
+        ISheetContentProvider provider = m_contentProvider;
+        if (provider == null || m_contentRequested || m_state == SlideState.Collapsed || m_state == SlideState.Hidden)
+            return;
+
+        // A sheet that can't hold the content has already failed its layout
+        if (!(child instanceof ViewGroup))
+            return;
+
+        if (m_contentInflater == null)
+            m_contentInflater = new AsyncLayoutInflater(child.getContext());
+
+        m_contentRequested = true;
+        m_contentInflater.inflate(provider.getContentLayout(), (ViewGroup) child, new ContentInflatedListener(provider, m_contentGeneration));
+    }
+
+    /**
+     * Removes the content that was added for the content provider, if it is still in the sheet
+     */
+    private void removeContent()
+    {
+        View content = m_contentRef != null ? m_contentRef.get() : null;
+        m_contentRef = null;
+        if (content == null)
+            return;
+
+        ViewParent parent = content.getParent();
+        if (parent instanceof ViewGroup && parent == getChild())
+        {
+            ((ViewGroup) parent).removeView(content);
+            invalidateNestedScrollingChild();
+            m_scrollTarget.invalidate();
+        }
+    }
+
+    private void revealHiddenSheet(View child)
+    {
+        if (!m_goneWhileHidden)
+            return;
+
+        m_goneWhileHidden = false;
+        if (child.getVisibility() == View.GONE)
+            child.setVisibility(View.VISIBLE);
+    }
+
+    private void updateMotionLayer(View child)
+    {
+        if (!m_state.isMoving())
+        {
+            m_motionLayerSuppressed = false;
+            restoreMotionLayer(child);
+            return;
+        }
+
+        if (!m_hardwareLayerWhileMoving || m_motionLayerActive || m_motionLayerSuppressed)
+            return;
+
+        m_savedLayerType = child.getLayerType();
+        m_motionLayerActive = true;
+
+        if (m_savedLayerType != View.LAYER_TYPE_HARDWARE)
+            child.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+    }
+
+    private void restoreMotionLayer(View child)
+    {
+        if (!m_motionLayerActive)
+            return;
+
+        m_motionLayerActive = false;
+        if (m_savedLayerType != View.LAYER_TYPE_HARDWARE && child.getLayerType() == View.LAYER_TYPE_HARDWARE)
+            child.setLayerType(m_savedLayerType, null);
+    }
+
+    private void setSlideEdge(SlideEdge edge)
+    {
+        m_slideEdge = edge;
+        m_slideIsReversed = m_slideEdge == SlideEdge.Left || m_slideEdge == SlideEdge.Top;
+        m_slideIsVertical = m_slideEdge == SlideEdge.Bottom || m_slideEdge == SlideEdge.Top;
+        m_geometry.setReversed(m_slideIsReversed);
+        m_touchPolicy.setVertical(m_slideIsVertical);
+    }
+
+    private void reset()
+    {
+        m_activePointerId = ViewDragHelper.INVALID_POINTER;
+        if (m_velocityTracker != null)
+            m_velocityTracker.clear();
+    }
+
+    /**
+     * Adds the {@code event} to the velocity tracker, which is obtained once and then cleared at
+     * the start of each gesture rather than recycled.
+     */
+    private void trackMovement(MotionEvent event)
+    {
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN)
+        {
+            // The same down event can reach both onInterceptTouchEvent() and onTouchEvent()
+            if (event.getDownTime() == m_trackedDownTime)
+                return;
+
+            m_trackedDownTime = event.getDownTime();
+            reset();
+        }
+
+        if (m_velocityTracker == null)
+            m_velocityTracker = VelocityTracker.obtain();
+
+        m_velocityTracker.addMovement(event);
+    }
+
+    private boolean shouldHide(View child, float velocity)
+    {
+        return m_geometry.shouldHide(getChildPosition(child), velocity, m_hideable, m_skipCollapsed);
+    }
+
+    /**
+     * Makes sure the cached nested scrolling child is up to date, only walking the sheet's
+     * hierarchy when the cache has been invalidated or the cached view has left the sheet.
+     * @param child The sliding child
+     */
+    private void resolveNestedScrollingChild(V child)
+    {
+        if (m_nestedScrollingChildExplicit)
+            return;
+
+        View scrollingChild = getNestedScrollingChild();
+        if (!m_nestedScrollingChildDirty)
+        {
+            m_nestedScrollingChildDirty = scrollingChild != null && !isDescendant(child, scrollingChild);
+            if (!m_nestedScrollingChildDirty)
+                return;
+        }
+
+        m_nestedScrollingChildDirty = false;
+        untrackRemovedViewPagers(child);
+
+        // The groups the search walks are exactly the ones where an added view could come before
+        // the scrolling child that is found, or be found when there is none
+        unwatchHierarchy();
+        View foundChild = findScrollingChild(child);
+        if (foundChild != scrollingChild)
+            m_nestedScrollingChildRef = foundChild != null ? new WeakReference<>(foundChild) : null;
+    }
+
+    /**
+     * Walks up from the {@code descendant}, so this only costs as much as the depth of the view.
+     */
+    private boolean isDescendant(View ancestor, View descendant)
+    {
+        View view = descendant;
+        while (view != null)
+        {
+            if (view == ancestor)
+                return true;
+
+            ViewParent parent = view.getParent();
+            view = parent instanceof View ? (View) parent : null;
+        }
+
+        return false;
+    }
+
+    private View findScrollingChild(View view)
+    {
+        if (view instanceof NestedScrollingChild)
+            return view;
+
+        if (view instanceof ViewPager)
+        {
+            ViewPager viewPager = (ViewPager) view;
+            trackViewPager(viewPager);
+            watchHierarchy(viewPager);
+
+            View currentViewPagerChild = ViewPagerUtils.getCurrentView(viewPager);
+            View scrollingChild = findScrollingChild(currentViewPagerChild);
+            if (scrollingChild != null)
+                return scrollingChild;
+        }
+        else if (view instanceof ViewGroup)
+        {
+            ViewGroup group = (ViewGroup) view;
+            watchHierarchy(group);
+            for (int i = 0, count = group.getChildCount(); i < count; i++)
+            {
+                View scrollingChild = findScrollingChild(group.getChildAt(i));
+                if (scrollingChild != null)
+                    return scrollingChild;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Listens for page changes on the {@code viewPager} so that the nested scrolling child can be
+     * updated as soon as the current page changes, rather than waiting for the next layout
+     */
+    private void trackViewPager(ViewPager viewPager)
+    {
+        for (int i = 0, count = m_pageChangeTrackers.size(); i < count; i++)
+        {
+            if (m_pageChangeTrackers.get(i).getViewPager() == viewPager)
+                return;
+        }
+
+        PageChangeTracker tracker = new PageChangeTracker(viewPager);
+        viewPager.addOnPageChangeListener(tracker);
+        m_pageChangeTrackers.add(tracker);
+    }
+
+    /**
+     * Stops listening for page changes on every tracked {@link ViewPager}.  The pagers are tracked
+     * again the next time the nested scrolling child is searched for.
+     */
+    private void untrackViewPagers()
+    {
+        for (int i = 0, count = m_pageChangeTrackers.size(); i < count; i++)
+        {
+            PageChangeTracker tracker = m_pageChangeTrackers.get(i);
+            ViewPager viewPager = tracker.getViewPager();
+            if (viewPager != null)
+                viewPager.removeOnPageChangeListener(tracker);
+        }
+
+        m_pageChangeTrackers.clear();
+        if (!m_nestedScrollingChildExplicit)
+            m_nestedScrollingChildDirty = true;
+    }
+
+    /**
+     * Listens for views that are added to or removed from the {@code group}, so that a scrolling
+     * child added anywhere in the searched part of the sheet invalidates the cached one
+     */
+    private void watchHierarchy(ViewGroup group)
+    {
+        group.setOnHierarchyChangeListener(m_hierarchyChangeTracker);
+        m_watchedGroups.add(new WeakReference<>(group));
+    }
+
+    private void unwatchHierarchy()
+    {
+        for (int i = 0, count = m_watchedGroups.size(); i < count; i++)
+        {
+            ViewGroup group = m_watchedGroups.get(i).get();
+            if (group != null)
+                group.setOnHierarchyChangeListener(null);
+        }
+
+        m_watchedGroups.clear();
+    }
+
+    private void untrackRemovedViewPagers(V child)
+    {
+        for (int i = m_pageChangeTrackers.size() - 1; i >= 0; i--)
+        {
+            PageChangeTracker tracker = m_pageChangeTrackers.get(i);
+            ViewPager viewPager = tracker.getViewPager();
+            if (viewPager != null && isDescendant(child, viewPager))
+                continue;
+
+            if (viewPager != null)
+                viewPager.removeOnPageChangeListener(tracker);
+
+            m_pageChangeTrackers.remove(i);
+        }
+    }
+
+    /**
+     * Re-resolves the nested scrolling child within the subtree of a {@link ViewPager} whose
+     * current page has changed.  The cache is left dirty either way, since the new page may not
+     * have been populated yet when the page change is reported; the next layout searches again.
+     */
+    private void onViewPagerPageSelected(ViewPager viewPager)
+    {
+        V child = getChild();
+        if (viewPager == null || child == null || m_nestedScrollingChildExplicit || !isDescendant(child, viewPager))
+            return;
+
+        // If the scrolling child lives outside of the pager, the page change doesn't affect it
+        View scrollingChild = getNestedScrollingChild();
+        if (scrollingChild == null || isDescendant(viewPager, scrollingChild))
+        {
+            View foundChild = findScrollingChild(viewPager);
+            if (foundChild == null)
+            {
+                // The new page doesn't have a scrolling child, so it may be somewhere else in the sheet
+                m_nestedScrollingChildDirty = true;
+                resolveNestedScrollingChild(child);
+            }
+            else if (foundChild != scrollingChild)
+            {
+                m_nestedScrollingChildRef = new WeakReference<>(foundChild);
+            }
+        }
+
+        m_nestedScrollingChildDirty = true;
+    }
+
+    private float getVelocity()
+    {
+        if (m_velocityTracker == null)
+            return 0;
+
+        m_velocityTracker.computeCurrentVelocity(1000, m_maximumVelocity);
+        if (m_slideIsVertical)
+            return m_velocityTracker.getYVelocity(m_activePointerId);
+
+        return m_velocityTracker.getXVelocity(m_activePointerId);
+    }
+
+    private void startSettlingAnimation(View child, SlideState state, int detentIndex)
+    {
+        if (state.isMoving())
+            throw new IllegalArgumentException("Illegal state argument: " + state);
+
+        if (state == SlideState.Anchored)
+            m_detentIndex = detentIndex;
+
+        // Keep the sheet's momentum if it is retargeted in the middle of settling
+        ISettleEngine engine = getActiveSettleEngine();
+        float velocity = engine != null && engine.isRunning() ? engine.getVelocity() : 0;
+        setStateInternal(SlideState.Settling);
+
+        if (!startSettling(child, state, velocity, false))
+            setStateInternal(state);
+    }
+
+    /**
+     * Starts moving the child towards the position for {@code targetState}, using the settle
+     * engine if there is one, or the {@link ViewDragHelper} otherwise.
+     *
+     * @param child       The sliding child
+     * @param targetState The state to settle into
+     * @param velocity    The current velocity of the child, in pixels per second
+     * @param captured    True if the child is currently captured by the {@link ViewDragHelper}
+     * @return True if the child is settling, false if it was already at the target position
+     */
+    private boolean startSettling(View child, SlideState targetState, float velocity, boolean captured)
+    {
+        int position = getPositionForState(targetState, child);
+
+        if (m_coordinator == null)
+        {
+            // Nothing drives the settle once the behavior has been detached, so jump to the target
+            m_settleDriver.cancel();
+            setChildPosition(child, position);
+            dispatchOnSlide(position);
+            return false;
+        }
+
+        ISettleEngine engine = getActiveSettleEngine();
+        if (engine != null)
+        {
+            engine.start(getExactChildPosition(child), position, velocity);
+            if (engine.isRunning())
+            {
+                m_settleDriver.start(child, targetState, true);
+                return true;
+            }
+
+            m_settleDriver.cancel();
+            setChildPosition(child, position);
+            dispatchOnSlide(position);
+            return false;
+        }
+
+        int finalLeft = m_slideIsVertical ? child.getLeft() : position;
+        int finalTop = m_slideIsVertical ? position : child.getTop();
+
+        boolean settling = captured ?
+                m_viewDragHelper.settleCapturedViewAt(finalLeft, finalTop) :
+                m_viewDragHelper.smoothSlideViewTo(child, finalLeft, finalTop);
+
+        // A settle that is already running is retargeted rather than driven by a second runnable
+        if (settling)
+            m_settleDriver.start(child, targetState, false);
+        else
+            m_settleDriver.cancel();
+
+        return settling;
+    }
+
+    private void cancelEngineSettling()
+    {
+        if (m_settleDriver.usesEngine())
+            m_settleDriver.cancel();
+
+        ISettleEngine engine = getActiveSettleEngine();
+        if (engine != null)
+            engine.cancel();
+    }
+
+    /**
+     * @return The engine that settles the sheet, or null if the {@link ViewDragHelper} does
+     */
+    private ISettleEngine getActiveSettleEngine()
+    {
+        if (m_settleEngine != null || m_movementMode == MovementMode.Offset)
+            return m_settleEngine;
+
+        if (m_defaultSettleEngine == null)
+            m_defaultSettleEngine = new SpringSettleEngine();
+
+        return m_defaultSettleEngine;
+    }
+
+    /**
+     * Sets the minimum and maximum sliding offsets for the child, taking peek size into account
+     * @param child The sliding child
+     * @param peekSize The peek size for the child, in pixels
+     */
+    private void setChildOffsetRange(V child, int peekSize)
+    {
+        if (child == null)
+        {
+            m_needsOffsetUpdate = true;
+            return;
+        }
+
+        m_needsOffsetUpdate = false;
+        m_geometry.update(m_parentSize, getViewSize(child), peekSize);
+    }
+
+    /**
+     * Finds the resting state for a sheet with detents that is released at its current position,
+     * and remembers the detent if that is where the sheet should settle.
+     *
+     * @param velocity The velocity of the sheet along the slide axis; only the sign is used
+     */
+    private SlideState findReleaseState(View child, float velocity)
+    {
+        return getStateForStop(m_geometry.findReleaseStop(getChildPosition(child), velocity));
+    }
+
+    /**
+     * Finds the resting state closest to where the release predictor expects the sheet to come to
+     * rest, and remembers the detent if that is where the sheet should settle.
+     *
+     * @param velocity The velocity of the sheet along the slide axis, in pixels per second
+     */
+    private SlideState predictReleaseState(View child, float velocity)
+    {
+        m_releasePredictor.predict(getExactChildPosition(child), velocity, m_releasePrediction);
+
+        int stop = m_geometry.findNearestStop(m_releasePrediction.getRestPosition(), m_hideable, m_skipCollapsed);
+        if (stop == SheetGeometry.STOP_HIDDEN)
+            return SlideState.Hidden;
+
+        return getStateForStop(stop);
+    }
+
+    private SlideState getStateForStop(int stop)
+    {
+        if (stop == SheetGeometry.STOP_COLLAPSED)
+            return SlideState.Collapsed;
+
+        if (stop == SheetGeometry.STOP_EXPANDED)
+            return SlideState.Expanded;
+
+        m_detentIndex = stop;
+        return SlideState.Anchored;
+    }
+
+    private boolean childCloserToExpandedState(View child)
+    {
+        return m_geometry.isCloserToExpanded(getChildPosition(child));
+    }
+
+    private boolean touchEventIndicatesDrag(MotionEvent event)
+    {
+        return m_touchPolicy.indicatesDrag(event.getX(), event.getY());
+    }
+
+    private int getPositionForState(SlideState state, View child)
+    {
+        switch (state)
+        {
+            case Hidden:
+                return m_geometry.getHiddenPosition();
+            case Collapsed:
+                return m_geometry.getCollapsedPosition();
+            case Expanded:
+                return m_geometry.getExpandedPosition();
+            case Anchored:
+                if (m_detentIndex >= 0 && m_detentIndex < m_geometry.getDetentCount())
+                    return m_geometry.getDetentPosition(m_detentIndex);
+
+                return m_geometry.getCollapsedPosition();
+            case Dragging:
+            case Settling:
+                return getChildPosition(child);
+            default:
+                throw new RuntimeException("Unexpected state in SlidingSheetBehavior.getPositionForState(): " + state.toString());
+        }
+    }
+
+    private boolean canScroll(View view, int direction, boolean inSlidingSheetDirection)
+    {
+        if (view == null)
+            return false;
+
+        if (inSlidingSheetDirection)
+            return m_slideIsVertical ? view.canScrollVertically(direction) : view.canScrollHorizontally(direction);
+
+        return m_slideIsVertical ? view.canScrollHorizontally(direction) : view.canScrollVertically(direction);
+    }
+
+    /**
+     * The new offset of this sliding sheet within [-1,1] range. Offset
+     * increases as this sliding sheet is moving towards expanded state. From 0 to 1 the sheet
+     * is between collapsed and expanded states and from -1 to 0 it is
+     * between hidden and collapsed states.
+     */
+    private void dispatchOnSlide(float position)
+    {
+        float previousOffset = m_slideOffset;
+        m_slideOffset = m_geometry.calculateSlideOffset(position);
+
+        // Moving the sheet only redraws the area it covers, so the rest of the scrim is redrawn
+        // whenever the opacity it is drawn with changes
+        if (m_scrimOpacity > 0 && getScrimAlpha(previousOffset) != getScrimAlpha(m_slideOffset))
+            invalidateScrim();
+
+        if (m_gestureTracker != null)
+            m_gestureTracker.onMovement();
+
+        // While settling, slide events are delivered with the rest of the parent's sheets
+        if ((m_slideDispatchMode == SlideDispatchMode.PerFrame || m_steppingSettle) && m_coordinator != null)
+        {
+            if (!m_slidePending)
+            {
+                m_slidePending = true;
+                m_coordinator.deliverSlideOnNextFrame(this);
+            }
+
+            return;
+        }
+
+        deliverOnSlide();
+    }
+
+    private float getScrimOpacityForOffset(float slideOffset)
+    {
+        return m_scrimOpacity * Math.max(0, Math.min(1, slideOffset));
+    }
+
+    private int getScrimAlpha(float slideOffset)
+    {
+        return Math.round(255 * getScrimOpacityForOffset(slideOffset));
+    }
+
+    private void invalidateScrim()
+    {
+        CoordinatorLayout parent = getParent();
+        if (parent != null)
+            parent.invalidate();
+    }
+
+    /**
+     * @return True if the scrim is visible and consumes the touches that land on it
+     */
+    boolean blocksScrimTouches()
+    {
+        return m_scrimTouchAction != ScrimTouchAction.None && getScrimAlpha(m_slideOffset) > 0;
+    }
+
+    private void onScrimTouchEvent(MotionEvent event)
+    {
+        int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_UP && !touchEventIndicatesDrag(event))
+            setState(m_scrimTouchAction == ScrimTouchAction.Hide && m_hideable ? SlideState.Hidden : SlideState.Collapsed);
+
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL)
+            m_scrimTouched = false;
+    }
+
+    private void flushPendingSlide()
+    {
+        if (!m_slidePending)
+            return;
+
+        if (m_coordinator != null)
+            m_coordinator.cancelSlideDelivery(this);
+
+        deliverOnSlide();
+    }
+
+    /**
+     * Called by the {@link SheetCoordinator} to deliver a slide event that was held for the frame
+     */
+    void deliverPendingSlide()
+    {
+        if (m_slidePending)
+            deliverOnSlide();
+    }
+
+    /**
+     * Called by the {@link SheetCoordinator} once per frame to move a settling sheet.  Slide events
+     * are held until the coordinator has stepped all of its sheets.
+     *
+     * @return True if the sheet is still settling
+     */
+    boolean stepSettle(long frameTimeNanos)
+    {
+        View view = m_settleDriver.getView();
+        if (view == null)
+            return false;
+
+        m_steppingSettle = true;
+        boolean running;
+
+        if (m_gestureTracker != null)
+            m_gestureTracker.onSettleFrame(frameTimeNanos);
+
+        if (m_settleDriver.usesEngine())
+        {
+            ISettleEngine engine = getActiveSettleEngine();
+            running = engine != null && engine.step(frameTimeNanos);
+
+            // An engine can carry a fast release past its target, but the sheet never leaves the
+            // range it can be dragged in, which would open a gap at the edge of the parent
+            float position = engine != null ? engine.getPosition() : getExactChildPosition(view);
+            position = m_geometry.clampPosition(position, m_hideable);
+            if (m_movementMode == MovementMode.Offset)
+                position = Math.round(position);
+
+            if (position != getExactChildPosition(view))
+            {
+                setChildPosition(view, position);
+                dispatchOnSlide(position);
+            }
+        }
+        else
+        {
+            // Moves the view and reports it through onViewPositionChanged()
+            running = m_viewDragHelper != null && m_viewDragHelper.continueSettling(true);
+        }
+
+        m_steppingSettle = false;
+        return running;
+    }
+
+    /**
+     * Called by the {@link SheetCoordinator} after a sheet stops settling, once the slide events
+     * for the frame have been delivered
+     */
+    void finishSettle()
+    {
+        if (!m_settleDriver.isActive())
+            return;
+
+        SlideState targetState = m_settleDriver.getTargetState();
+        m_settleDriver.clear();
+        setStateInternal(targetState);
+    }
+
+    private void deliverOnSlide()
+    {
+        m_slidePending = false;
 
         View child = getChild();
-        if (child != null && m_callback != null)
-            m_callback.onStateChanged(child, m_state);
+        if (child == null)
+            return;
+
+        // The content is changing underneath the layer, so it would need to be re-rendered
+        // every frame anyway. Drop the layer until the sheet comes to rest.
+        if (m_motionLayerActive && child.isLayoutRequested())
+        {
+            m_motionLayerSuppressed = true;
+            restoreMotionLayer(child);
+        }
+
+        m_bindings.apply(m_slideOffset);
+
+        ISlidingSheetCallback[] callbacks = m_callbacks;
+        for (int i = 0, count = callbacks.length; i < count; i++)
+            callbacks[i].onSlide(child, m_slideOffset);
     }
 
-    private void setSlideEdge(SlideEdge edge)
+    View getSheetView()
     {
-        m_slideEdge = edge;
-        m_slideIsReversed = m_slideEdge == SlideEdge.Left || m_slideEdge == SlideEdge.Top;
-        m_slideIsVertical = m_slideEdge == SlideEdge.Bottom || m_slideEdge == SlideEdge.Top;
+        return getChild();
     }
 
-    private void reset()
+    /**
+     * @return True if the sheet is shown, or if it is only gone because it is hidden, in which
+     *         case it can still be revealed with an edge drag
+     */
+    boolean isShownOrRevealable(View child)
     {
-        m_activePointerId = ViewDragHelper.INVALID_POINTER;
-        if (m_velocityTracker != null)
+        if (child.isShown())
+            return true;
+
+        CoordinatorLayout parent = getParent();
+        return m_goneWhileHidden && parent != null && parent.isShown();
+    }
+
+    /**
+     * @return True if a touch at the given point, relative to the parent, would start an edge drag
+     *         for this sheet
+     */
+    boolean isEdgeDragTouch(int x, int y)
+    {
+        CoordinatorLayout parent = getParent();
+        if (!m_hideable || !m_edgeDragEnabled || m_viewDragHelper == null || parent == null)
+            return false;
+
+        int edgeSize = m_viewDragHelper.getEdgeSize();
+        switch (m_slideEdge)
         {
-            m_velocityTracker.recycle();
-            m_velocityTracker = null;
+            case Left:
+                return x < edgeSize;
+            case Right:
+                return x > parent.getWidth() - edgeSize;
+            case Top:
+                return y < edgeSize;
+            default:
+                return y > parent.getHeight() - edgeSize;
         }
     }
 
-    private boolean shouldHide(View child, float velocity)
+    @VisibleForTesting
+    int getPeekSizeMin()
     {
-        if (!m_hideable)
-            return false;
+        return m_peekSizeMin;
+    }
+
+    /**
+     * Tracks the settle that the {@link SheetCoordinator} is driving for this sheet, either with
+     * the settle engine or the {@link ViewDragHelper}.  There is only one per behavior, and
+     * starting it again while it is active just changes the state it settles into.
+     */
+    private class SettleDriver
+    {
+        private View m_view;
+        private SlideState m_targetState;
+        private boolean m_usesEngine;
 
-        //If the velocity indicates we are expanding, then we also don't want to hide
-        if ((velocity < 0 && !m_slideIsReversed) || (velocity > 0 && m_slideIsReversed) || (velocity == 0 && childCloserToExpandedState(child)))
+        void start(View view, SlideState targetState, boolean usesEngine)
         {
-            return false;
+            m_view = view;
+            m_targetState = targetState;
+            m_usesEngine = usesEngine;
+            m_coordinator.startSettling(SlidingSheetBehavior.this);
         }
 
-        // Now that we've established we aren't opening the drawer, we can always return true if
-        // we are supposed to skip the collapsed state
-        if (m_skipCollapsed)
-            return true;
+        boolean isActive()
+        {
+            return m_view != null;
+        }
 
-        if (!m_slideIsReversed)
+        boolean usesEngine()
         {
-            // Do not hide if the child is not in the peek area
-            int childPosition = getChildPosition(child);
-            if (childPosition < m_maxOffset)
-                return false;
+            return m_view != null && m_usesEngine;
+        }
 
-            final float newPosition = childPosition + velocity * HIDE_FRICTION;
-            return Math.abs(newPosition - m_maxOffset) / (float) m_peekSize > HIDE_THRESHOLD;
+        View getView()
+        {
+            return m_view;
         }
-        else
+
+        SlideState getTargetState()
         {
-            // Do not hide if the child is not in the peek area
-            int childEndPosition = getChildEndPosition(child);
-            if (childEndPosition > m_peekSize)
-                return false;
+            return m_targetState;
+        }
 
-            final float newEndPosition = childEndPosition + velocity * HIDE_FRICTION;
-            return (newEndPosition / (float) m_peekSize) < HIDE_THRESHOLD;
+        void cancel()
+        {
+            if (m_view != null && m_coordinator != null)
+                m_coordinator.stopSettling(SlidingSheetBehavior.this);
+
+            clear();
+        }
+
+        void clear()
+        {
+            m_view = null;
         }
     }
 
-    private View findScrollingChild(View view)
+    /**
+     * Holds the latest state requested while a layout is pending.  It is applied by a runnable
+     * posted to the child, which runs once the pending layout pass has finished, so the settle
+     * starts (and callbacks are notified) outside of the parent's layout.  Later requests replace
+     * the target instead of posting again.
+     */
+    private class PendingSettle implements Runnable
     {
-        if (view instanceof NestedScrollingChild)
-            return view;
+        private View m_view;
+        private SlideState m_targetState;
+        private int m_targetDetentIndex;
 
-        if (view instanceof ViewPager)
-        {
-            ViewPager viewPager = (ViewPager) view;
-            View currentViewPagerChild = ViewPagerUtils.getCurrentView(viewPager);
-            View scrollingChild = findScrollingChild(currentViewPagerChild);
-            if (scrollingChild != null)
-                return scrollingChild;
-        }
-        else if (view instanceof ViewGroup)
+        void post(View view, SlideState state, int detentIndex)
         {
-            ViewGroup group = (ViewGroup) view;
-            for (int i = 0, count = group.getChildCount(); i < count; i++)
+            if (m_view != view)
             {
-                View scrollingChild = findScrollingChild(group.getChildAt(i));
-                if (scrollingChild != null)
-                    return scrollingChild;
+                cancel();
+                m_view = view;
+                view.post(this);
             }
+
+            m_targetState = state;
+            m_targetDetentIndex = detentIndex;
         }
 
-        return null;
-    }
+        boolean isPending()
+        {
+            return m_view != null;
+        }
 
-    private float getVelocity()
-    {
-        m_velocityTracker.computeCurrentVelocity(1000, m_maximumVelocity);
-        if (m_slideIsVertical)
-            return VelocityTrackerCompat.getYVelocity(m_velocityTracker, m_activePointerId);
+        SlideState getState()
+        {
+            return m_targetState;
+        }
 
-        return VelocityTrackerCompat.getXVelocity(m_velocityTracker, m_activePointerId);
-    }
+        int getDetentIndex()
+        {
+            return m_targetDetentIndex;
+        }
 
-    private void startSettlingAnimation(View child, SlideState state)
-    {
-        if (state != SlideState.Collapsed && state != SlideState.Expanded && state != SlideState.Hidden)
-            throw new IllegalArgumentException("Illegal state argument: " + state);
+        void cancel()
+        {
+            if (m_view == null)
+                return;
 
-        int newPosition = getPositionForState(state, child);
-        setStateInternal(SlideState.Settling);
+            m_view.removeCallbacks(this);
+            m_view = null;
+        }
+
+        @Override
+        public void run()
+        {
+            View view = m_view;
+            if (view == null)
+                return;
 
-        int finalLeft = m_slideIsVertical ? child.getLeft() : newPosition;
-        int finalTop = m_slideIsVertical ? newPosition : child.getTop();
+            cancel();
+
+            // Nothing to do if the sheet already came to rest there in the meantime, other than
+            // dropping it from layout again if it was brought back while it was hidden
+            if (m_targetState == m_state && (m_targetState != SlideState.Anchored || m_targetDetentIndex == m_detentIndex))
+            {
+                updateHiddenVisibility(view);
+                return;
+            }
 
-        if (m_viewDragHelper.smoothSlideViewTo(child, finalLeft, finalTop))
-            ViewCompat.postOnAnimation(child, new SettleRunnable(child, state));
+            startSettlingAnimation(view, m_targetState, m_targetDetentIndex);
+        }
     }
 
     /**
-     * Sets the minimum and maximum sliding offsets for the child, taking peek size into account
-     * @param child The sliding child
-     * @param peekSize The peek size for the child, in pixels
+     * Exposes the nested scrolling child to the {@link TouchInterceptPolicy}.  A single instance is
+     * pointed at the current views for each event, so intercepting doesn't allocate.
+     *
+     * <p>The bounds of the scrolling view are cached relative to the sheet, so they stay valid
+     * while the sheet moves.  They are recalculated after the sheet is laid out, or after anything
+     * in the window scrolls.</p>
      */
-    private void setChildOffsetRange(V child, int peekSize)
+    private static class NestedScrollTarget implements TouchInterceptPolicy.IScrollTarget, ViewTreeObserver.OnScrollChangedListener
     {
-        if (child == null)
+        private final Rect m_hitRect = new Rect();
+        private boolean m_hitRectValid;
+        private View m_sheet;
+        private View m_view;
+        private ViewTreeObserver m_observer;
+
+        NestedScrollTarget set(View sheet, View view)
         {
-            m_needsOffsetUpdate = true;
-            return;
-        }
+            if (sheet != m_sheet || view != m_view)
+            {
+                m_sheet = sheet;
+                m_view = view;
+                m_hitRectValid = false;
+            }
 
-        m_needsOffsetUpdate = false;
-        int childSize = getViewSize(child);
+            return this;
+        }
 
-        if (m_slideIsReversed)
+        void invalidate()
         {
-            m_minOffset = peekSize - childSize;;
-            m_maxOffset = 0;
+            m_hitRectValid = false;
         }
-        else
+
+        void observe(ViewTreeObserver observer)
         {
-            m_minOffset = Math.max(0, m_parentSize - childSize);
-            m_maxOffset = Math.max(m_parentSize - peekSize, m_minOffset);
+            if (observer == m_observer)
+                return;
+
+            if (m_observer != null && m_observer.isAlive())
+                m_observer.removeOnScrollChangedListener(this);
+
+            m_observer = observer.isAlive() ? observer : null;
+            if (m_observer != null)
+                m_observer.addOnScrollChangedListener(this);
         }
-    }
 
-    private boolean childCloserToExpandedState(View child)
-    {
-        int currentPosition = getChildPosition(child);
-        int expandedPosition = getPositionForState(SlideState.Expanded, child);
-        int collapsedPosition = getPositionForState(SlideState.Collapsed, child);
-        int expandedThreshold = (collapsedPosition - expandedPosition) / 2;
+        void release()
+        {
+            if (m_observer != null && m_observer.isAlive())
+                m_observer.removeOnScrollChangedListener(this);
 
-        return m_slideIsReversed ? currentPosition > expandedThreshold : currentPosition < expandedThreshold;
-    }
+            m_observer = null;
+            m_sheet = null;
+            m_view = null;
+            m_hitRectValid = false;
+        }
 
-    private boolean touchEventIndicatesDrag(MotionEvent event)
-    {
-        int touchDifference = (int)(m_slideIsVertical ? m_initialY - event.getY() : m_initialX - event.getX());
-        return Math.abs(touchDifference) > m_viewDragHelper.getTouchSlop();
-    }
+        @Override
+        public void onScrollChanged()
+        {
+            m_hitRectValid = false;
+        }
 
-    private int getPositionForState(SlideState state, View child)
-    {
-        switch (state)
+        @Override
+        public boolean containsPoint(int x, int y)
         {
-            case Hidden:
-                return m_slideIsReversed ? -getViewSize(child) : m_parentSize;
-            case Collapsed:
-                return m_slideIsReversed ? m_minOffset : m_maxOffset;
-            case Expanded:
-                return m_slideIsReversed ? m_maxOffset : m_minOffset;
-            case Dragging:
-            case Settling:
-                return getChildPosition(child);
-            default:
-                throw new RuntimeException("Unexpected state in SlidingSheetBehavior.getPositionForState(): " + state.toString());
+            if (!m_hitRectValid)
+                updateHitRect();
+
+            int left = (int) (m_sheet.getLeft() + m_sheet.getTranslationX());
+            int top = (int) (m_sheet.getTop() + m_sheet.getTranslationY());
+            return m_hitRect.contains(x - left, y - top);
         }
-    }
 
-    private boolean canScroll(View view, int direction, boolean inSlidingSheetDirection)
-    {
-        if (view == null)
-            return false;
+        @Override
+        public boolean canScrollVertically(int direction)
+        {
+            return m_view.canScrollVertically(direction);
+        }
 
-        if (inSlidingSheetDirection)
-            return m_slideIsVertical ? view.canScrollVertically(direction) : view.canScrollHorizontally(direction);
+        @Override
+        public boolean canScrollHorizontally(int direction)
+        {
+            return m_view.canScrollHorizontally(direction);
+        }
 
-        return m_slideIsVertical ? view.canScrollHorizontally(direction) : view.canScrollVertically(direction);
-    }
+        private void updateHitRect()
+        {
+            m_hitRectValid = true;
 
-    private boolean canScrollInEventDirection(View view, MotionEvent event)
-    {
-        if (view == null)
-            return false;
+            int left = 0;
+            int top = 0;
+            View view = m_view;
+            while (view != m_sheet)
+            {
+                ViewParent parent = view.getParent();
+                if (!(parent instanceof View))
+                {
+                    // Not inside of the sheet, so it can't be touched through the sheet
+                    m_hitRect.setEmpty();
+                    return;
+                }
 
-        int verticalDifference = m_initialY - (int)event.getY();
-        int horizontalDifference = m_initialX - (int)event.getX();
+                left += view.getLeft() - ((View) parent).getScrollX();
+                top += view.getTop() - ((View) parent).getScrollY();
+                view = (View) parent;
+            }
 
-        if (Math.abs(verticalDifference) > Math.abs(horizontalDifference))
-            return view.canScrollVertically(verticalDifference) || view.canScrollVertically(-verticalDifference);
-        else
-            return view.canScrollHorizontally(horizontalDifference) || view.canScrollHorizontally(-horizontalDifference);
+            m_hitRect.set(left, top, left + m_view.getWidth(), top + m_view.getHeight());
+        }
     }
 
-    /**
-     * The new offset of this sliding sheet within [-1,1] range. Offset
-     * increases as this sliding sheet is moving towards expanded state. From 0 to 1 the sheet
-     * is between collapsed and expanded states and from -1 to 0 it is
-     * between hidden and collapsed states.
-     */
-    private void dispatchOnSlide(int position)
+    private class PageChangeTracker extends ViewPager.SimpleOnPageChangeListener
     {
-        View child = getChild();
-        if (child == null || m_callback == null)
-            return;
-
-        int hiddenPosition = getPositionForState(SlideState.Hidden, child);
-        int collapsedPosition = getPositionForState(SlideState.Collapsed, child);
-        int expandedPosition = getPositionForState(SlideState.Expanded, child);
-
-        boolean betweenHiddenAndCollapsed = m_slideIsReversed ?
-                (position >= hiddenPosition && position < collapsedPosition) :
-                (position > collapsedPosition && position <= hiddenPosition);
+        private final WeakReference<ViewPager> m_viewPagerRef;
 
-        boolean betweenCollapsedAndExpanded = m_slideIsReversed ?
-                (position > collapsedPosition && position <= expandedPosition) :
-                (position >= expandedPosition && position < collapsedPosition);
-
-        float slideOffset = 0.0f; //Assume collapsed
-        if (betweenHiddenAndCollapsed)
+        PageChangeTracker(ViewPager viewPager)
         {
-            int distance = Math.abs(hiddenPosition - collapsedPosition);
-            float relativePosition = Math.abs(position - collapsedPosition);
-            slideOffset = -1 * (relativePosition / distance);
+            m_viewPagerRef = new WeakReference<>(viewPager);
         }
-        else if (betweenCollapsedAndExpanded)
+
+        ViewPager getViewPager()
         {
-            int distance = Math.abs(collapsedPosition - expandedPosition);
-            float relativePosition = Math.abs(position - expandedPosition);
-            slideOffset = 1 - (relativePosition / distance);
+            return m_viewPagerRef.get();
         }
 
-        m_callback.onSlide(child, slideOffset);
+        @Override
+        public void onPageSelected(int position)
+        {
+            onViewPagerPageSelected(getViewPager());
+        }
     }
 
-    @VisibleForTesting
-    int getPeekSizeMin()
+    private class HierarchyChangeTracker implements ViewGroup.OnHierarchyChangeListener
     {
-        return m_peekSizeMin;
+        // Adding or removing a view requests a layout of the sheet, which searches again
+        @Override
+        public void onChildViewAdded(View parent, View child)
+        {
+            if (!m_nestedScrollingChildExplicit)
+                m_nestedScrollingChildDirty = true;
+        }
+
+        @Override
+        public void onChildViewRemoved(View parent, View child)
+        {
+            if (!m_nestedScrollingChildExplicit)
+                m_nestedScrollingChildDirty = true;
+        }
     }
 
-    private class SettleRunnable implements Runnable
+    private class ContentInflatedListener implements AsyncLayoutInflater.OnInflateFinishedListener
     {
-        private final View m_view;
-        private final SlideState m_targetState;
+        private final ISheetContentProvider m_provider;
+        private final int m_generation;
 
-        SettleRunnable(View view, SlideState targetState)
+        ContentInflatedListener(ISheetContentProvider provider, int generation)
         {
-            m_view = view;
-            m_targetState = targetState;
+            m_provider = provider;
+            m_generation = generation;
         }
 
         @Override
-        public void run()
+        public void onInflateFinished(@NonNull View view, int resid, @Nullable ViewGroup parent)
         {
-            if (m_viewDragHelper != null && m_viewDragHelper.continueSettling(true))
-                ViewCompat.postOnAnimation(m_view, this);
-            else
-                setStateInternal(m_targetState);
+            // The provider was changed (even if it was set back to the same one afterwards), or the
+            // sheet was replaced, while the content was inflating
+            if (m_contentGeneration != m_generation || parent == null || parent != getChild())
+                return;
+
+            parent.addView(view);
+            m_contentRef = new WeakReference<>(view);
+            m_contentInflated = true;
+            m_provider.onContentInflated(parent, view);
+
+            // Adding the content requests a layout, which picks up the scrolling content before
+            // the next frame is drawn
+            invalidateNestedScrollingChild();
+            m_scrollTarget.invalidate();
         }
     }
 
@@ -999,12 +2927,28 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
             return ViewCompat.canScrollHorizontally(view, -1);
         }
 
+        @Override
+        public void onViewCaptured(View capturedChild, int activePointerId)
+        {
+            // Capturing aborts the ViewDragHelper's own settle, so the driver must not finish it
+            m_settleDriver.cancel();
+            cancelEngineSettling();
+
+            m_dragAnchorPosition = getExactChildPosition(capturedChild);
+            m_dragAnchorTouch = getDragTouch(m_dragEvent);
+        }
+
         @Override
         public void onEdgeDragStarted(int edgeFlags, int pointerId)
         {
             V child = getChild();
-            if (child != null)
-                m_viewDragHelper.captureChildView(child, pointerId);
+            if (child == null)
+                return;
+
+            // The sheet is still at its hidden position, so it can be dragged in right away; the
+            // layout that making it visible requests keeps the dragged position
+            revealHiddenSheet(child);
+            m_viewDragHelper.captureChildView(child, pointerId);
         }
 
         @Override
@@ -1026,8 +2970,12 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
             float velocity = m_slideIsVertical ? yVelocity : xVelocity;
 
             SlideState targetState = SlideState.Collapsed;
-            if (shouldHide(releasedChild, getVelocity()))
+            if (m_releasePredictor != null)
+                targetState = predictReleaseState(releasedChild, velocity);
+            else if (shouldHide(releasedChild, getVelocity()))
                 targetState = SlideState.Hidden;
+            else if (m_geometry.getDetentCount() > 0)
+                targetState = findReleaseState(releasedChild, velocity);
             else if (velocity < 0 && !m_slideIsReversed) // Moving up or left
                 targetState = SlideState.Expanded;
             else if (velocity > 0 && m_slideIsReversed) // Moving right or down
@@ -1035,14 +2983,9 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
             else if (velocity == 0 && childCloserToExpandedState(releasedChild)) // Not moving
                 targetState = SlideState.Expanded;
 
-            int position = getPositionForState(targetState, releasedChild);
-            int finalLeft = m_slideIsVertical ? releasedChild.getLeft() : position;
-            int finalTop = m_slideIsVertical ? position : releasedChild.getTop();
-
-            if (m_viewDragHelper.settleCapturedViewAt(finalLeft, finalTop))
+            if (startSettling(releasedChild, targetState, velocity, true))
             {
                 setStateInternal(SlideState.Settling);
-                ViewCompat.postOnAnimation(releasedChild, new SettleRunnable(releasedChild, targetState));
                 return;
             }
 
@@ -1075,31 +3018,16 @@ public class SlidingSheetBehavior<V extends View> extends CoordinatorLayout.Beha
 
         private int getDragRange()
         {
-            return m_hideable ? m_parentSize - m_minOffset : m_maxOffset - m_minOffset;
+            return m_geometry.getDragRange(m_hideable);
         }
 
         private int clampViewPosition(View child, int position)
         {
-            int low;
-            int high;
-
-            if (m_slideIsReversed)
-            {
-                low = m_hideable ? -getViewSize(child) : m_minOffset;
-                high = m_maxOffset;
-            }
-            else
-            {
-                low = m_minOffset;
-                high = m_hideable ? m_parentSize : m_maxOffset;
-            }
-
-            return constrain(position, low, high);
-        }
+            if (m_movementMode == MovementMode.Offset)
+                return m_geometry.clampPosition(position, m_hideable);
 
-        private int constrain(int amount, int low, int high)
-        {
-            return amount < low ? low : (amount > high ? high : amount);
+            // The layout position stays where it is; dragWithTranslation() moves the sheet instead
+            return m_slideIsVertical ? child.getTop() : child.getLeft();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.magouyaware.slidingsheetbehavior.callbacks;
+
+import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Provides content for a sliding sheet that is only inflated once the sheet is first moved out
+ * of its collapsed or hidden state, so that heavy content the user may never see doesn't slow
+ * down the inflation of the screen.  Until then, the sheet holds whatever lightweight views its
+ * layout declares, such as a header that fills the peek.
+ */
+public interface ISheetContentProvider
+{
+    /**
+     * @return The layout of the content.  It is inflated off of the main thread where possible,
+     *         so it must not contain views that need a {@link android.os.Looper} while inflating,
+     *         such as fragments.
+     */
+    @LayoutRes
+    int getContentLayout();
+
+    /**
+     * Called on the main thread once the content has been inflated and added to the end of the
+     * sheet.  This is where the content should be bound, and where any placeholder views in the
+     * sheet can be removed.
+     *
+     * @param sheet   The sliding sheet view
+     * @param content The root view of the inflated content
+     */
+    void onContentInflated(@NonNull ViewGroup sheet, @NonNull View content);
+}
@@ -0,0 +1,24 @@
+package com.magouyaware.slidingsheetbehavior.callbacks;
+
+import android.support.annotation.NonNull;
+import android.view.View;
+
+import com.magouyaware.slidingsheetbehavior.behavior.SheetGestureStats;
+
+/**
+ * Listener for frame timing information about sliding sheet gestures.  A gesture starts when the
+ * sheet sees a touch down event and ends when the sheet comes to rest after the touch (or the
+ * nested scroll it drove) is released, or at the release if the sheet is already at rest.
+ */
+public interface ISheetPerformanceListener
+{
+    /**
+     * Called once each gesture has finished.
+     *
+     * @param slidingSheet The sliding sheet view.
+     * @param stats        The frame timing for the gesture.  The same instance is reused for every
+     *                     gesture, so use {@link SheetGestureStats#copy()} to hold on to it (for
+     *                     example, to hand it off to another thread for reporting).
+     */
+    void onGestureFinished(@NonNull View slidingSheet, @NonNull SheetGestureStats stats);
+}
@@ -0,0 +1,44 @@
+package com.magouyaware.slidingsheetbehavior.enums;
+
+/**
+ * Enum for determining how a sliding sheet is moved
+ */
+public enum MovementMode
+{
+    /**
+     * The sheet's layout position is offset, which moves it in whole pixels
+     */
+    Offset(1),
+
+    /**
+     * The sheet keeps its layout position and is moved with its translation, which supports
+     * sub-pixel positions and doesn't touch the sheet's layout bounds while it moves.  A sheet
+     * with a scrim keeps the whole pixels of its position in its layout position instead, since
+     * the scrim is drawn around the sheet's layout bounds.
+     */
+    Translation(2);
+
+    private int m_intValue;
+    MovementMode(int value)
+    {
+        m_intValue = value;
+    }
+
+    public int getIntValue()
+    {
+        return m_intValue;
+    }
+
+    public static MovementMode fromIntValue(int value)
+    {
+        switch (value)
+        {
+            case 1:
+                return Offset;
+            case 2:
+                return Translation;
+            default:
+                throw new IllegalArgumentException("Invalid value passed to MovementMode.fromIntValue(): " + value);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.magouyaware.slidingsheetbehavior.enums;
+
+/**
+ * Enum for determining what happens when the scrim drawn behind a sliding sheet is touched
+ */
+public enum ScrimTouchAction
+{
+    /**
+     * Touches pass through the scrim to the views below it
+     */
+    None(1),
+
+    /**
+     * Touches on the scrim are consumed, and tapping it collapses the sheet
+     */
+    Collapse(2),
+
+    /**
+     * Touches on the scrim are consumed, and tapping it hides the sheet (or collapses it if the
+     * sheet isn't hideable)
+     */
+    Hide(3);
+
+    private int m_intValue;
+    ScrimTouchAction(int value)
+    {
+        m_intValue = value;
+    }
+
+    public int getIntValue()
+    {
+        return m_intValue;
+    }
+
+    public static ScrimTouchAction fromIntValue(int value)
+    {
+        switch (value)
+        {
+            case 1:
+                return None;
+            case 2:
+                return Collapse;
+            case 3:
+                return Hide;
+            default:
+                throw new IllegalArgumentException("Invalid value passed to ScrimTouchAction.fromIntValue(): " + value);
+        }
+    }
+}
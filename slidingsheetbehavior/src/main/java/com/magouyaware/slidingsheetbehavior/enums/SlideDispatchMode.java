@@ -0,0 +1,43 @@
+package com.magouyaware.slidingsheetbehavior.enums;
+
+/**
+ * Enum for determining when slide events are delivered to sliding sheet callbacks
+ */
+public enum SlideDispatchMode
+{
+    /**
+     * Every position change is delivered as soon as it happens.  A single frame may see several
+     * slide events when touch events arrive faster than the display refreshes.
+     */
+    Immediate(1),
+
+    /**
+     * Only the latest position is delivered, once per frame.  State changes are still delivered
+     * in order, after any slide event that is waiting for the next frame.
+     */
+    PerFrame(2);
+
+    private int m_intValue;
+    SlideDispatchMode(int value)
+    {
+        m_intValue = value;
+    }
+
+    public int getIntValue()
+    {
+        return m_intValue;
+    }
+
+    public static SlideDispatchMode fromIntValue(int value)
+    {
+        switch (value)
+        {
+            case 1:
+                return Immediate;
+            case 2:
+                return PerFrame;
+            default:
+                throw new IllegalArgumentException("Invalid value passed to SlideDispatchMode.fromIntValue(): " + value);
+        }
+    }
+}
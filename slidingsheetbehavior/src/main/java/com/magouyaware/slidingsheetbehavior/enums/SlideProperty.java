@@ -0,0 +1,55 @@
+package com.magouyaware.slidingsheetbehavior.enums;
+
+/**
+ * Enum for the view properties that can be bound to the slide offset of a sliding sheet
+ */
+public enum SlideProperty
+{
+    Alpha(SlideProperty.ALPHA),
+    TranslationX(SlideProperty.TRANSLATION_X),
+    TranslationY(SlideProperty.TRANSLATION_Y),
+    ScaleX(SlideProperty.SCALE_X),
+    ScaleY(SlideProperty.SCALE_Y),
+    Rotation(SlideProperty.ROTATION);
+
+    // The int values, as constants so that code which stores the value instead of the enum (such
+    // as a switch over an OffsetBindingTable property) can use them
+    public static final int ALPHA = 1;
+    public static final int TRANSLATION_X = 2;
+    public static final int TRANSLATION_Y = 3;
+    public static final int SCALE_X = 4;
+    public static final int SCALE_Y = 5;
+    public static final int ROTATION = 6;
+
+    private int m_intValue;
+    SlideProperty(int value)
+    {
+        m_intValue = value;
+    }
+
+    public int getIntValue()
+    {
+        return m_intValue;
+    }
+
+    public static SlideProperty fromIntValue(int value)
+    {
+        switch (value)
+        {
+            case ALPHA:
+                return Alpha;
+            case TRANSLATION_X:
+                return TranslationX;
+            case TRANSLATION_Y:
+                return TranslationY;
+            case SCALE_X:
+                return ScaleX;
+            case SCALE_Y:
+                return ScaleY;
+            case ROTATION:
+                return Rotation;
+            default:
+                throw new IllegalArgumentException("Invalid value passed to SlideProperty.fromIntValue(): " + value);
+        }
+    }
+}
@@ -9,7 +9,12 @@ public enum SlideState
     Settling(2, true),
     Expanded(3, false),
     Collapsed(4, false),
-    Hidden(5, false);
+    Hidden(5, false),
+
+    /**
+     * Resting at one of the detents set on the behavior, between collapsed and expanded
+     */
+    Anchored(6, false);
 
     private int m_intValue;
     private boolean m_moving;
@@ -38,8 +43,10 @@ public enum SlideState
                 return Collapsed;
             case 5:
                 return Hidden;
+            case 6:
+                return Anchored;
             default:
-                throw new IllegalArgumentException("Expected value from 1-5 in SlideState.fromIntValue(). Actual value: " + value);
+                throw new IllegalArgumentException("Expected value from 1-6 in SlideState.fromIntValue(). Actual value: " + value);
         }
     }
 
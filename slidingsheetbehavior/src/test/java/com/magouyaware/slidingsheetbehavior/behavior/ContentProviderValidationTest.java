@@ -0,0 +1,78 @@
+package com.magouyaware.slidingsheetbehavior.behavior;
+
+import android.support.annotation.NonNull;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.magouyaware.slidingsheetbehavior.callbacks.ISheetContentProvider;
+import com.magouyaware.slidingsheetbehavior.enums.SlideEdge;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that a sheet that can't hold the content of a content provider is rejected when the
+ * provider is set or when the sheet is first laid out, rather than when its state changes
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ContentProviderValidationTest
+{
+    private static final int SHEET_SIZE = 400;
+
+    private SheetTestRig m_rig;
+
+    @Before
+    public void setUp()
+    {
+        m_rig = new SheetTestRig();
+        m_rig.attach();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void settingAProviderOnALaidOutViewFails()
+    {
+        SlidingSheetBehavior<View> behavior = m_rig.addSheet(new View(m_rig.context), SHEET_SIZE, SlideEdge.Bottom);
+        behavior.setContentProvider(new EmptyContentProvider());
+    }
+
+    @Test
+    public void firstLayoutOfAViewWithAProviderFails()
+    {
+        SlidingSheetBehavior<View> behavior = new SlidingSheetBehavior<>(m_rig.context, SlideEdge.Bottom);
+        behavior.setContentProvider(new EmptyContentProvider());
+
+        try
+        {
+            m_rig.addSheet(new View(m_rig.context), SHEET_SIZE, behavior);
+        }
+        catch (RuntimeException e)
+        {
+            // The looper may wrap the exception from the traversal
+            for (Throwable cause = e; cause != null; cause = cause.getCause())
+            {
+                if (cause instanceof IllegalStateException)
+                    return;
+            }
+
+            throw e;
+        }
+
+        fail("The layout of a sheet that can't hold the content should fail");
+    }
+
+    private static final class EmptyContentProvider implements ISheetContentProvider
+    {
+        @Override
+        public int getContentLayout()
+        {
+            return 0;
+        }
+
+        @Override
+        public void onContentInflated(@NonNull ViewGroup sheet, @NonNull View content) {}
+    }
+}
@@ -0,0 +1,377 @@
+package com.magouyaware.slidingsheetbehavior.behavior;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.design.widget.CoordinatorLayout;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.magouyaware.slidingsheetbehavior.core.GestureRecording;
+import com.magouyaware.slidingsheetbehavior.core.GestureRecordingGenerator;
+import com.magouyaware.slidingsheetbehavior.core.SampleScreen;
+import com.magouyaware.slidingsheetbehavior.enums.SlideEdge;
+import com.magouyaware.slidingsheetbehavior.enums.SlideState;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays the sample gesture recordings from the core module's test fixtures against a real
+ * {@link CoordinatorLayout} with the behavior attached, and checks that the sheet only moves for
+ * the gestures that drag it.  The screen matches the {@link SampleScreen} the gestures were
+ * recorded on: an expanded sheet with a drag handle and a {@link RecyclerView} filling the rest
+ * of it.
+ *
+ * <p>The CPU time and the bytes allocated per touch event for each edge and gesture are only
+ * measured when a report file is given with the {@value #REPORT_PROPERTY} system property, since
+ * they take many passes and depend on the JVM:
+ * {@code ./gradlew :slidingsheetbehavior:testDebugUnitTest -PreplayReport=build/reports/gesture-replay.txt}.
+ * The main looper is paused while a gesture is replayed, so that the traversals and frames it
+ * schedules run between gestures instead of being counted as part of the events.  Robolectric's
+ * velocity tracker is replaced with one that doesn't allocate, so the allocations are the ones
+ * made by the touch handling of the views.  {@link TouchAllocationTest} checks the behavior's drag
+ * path.</p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(qualifiers = "w360dp-h640dp-xxhdpi", shadows = TouchAllocationTest.ShadowNonAllocatingVelocityTracker.class)
+public class GestureReplayTest
+{
+    static final String REPORT_PROPERTY = "slidingsheet.replayReport";
+
+    private static final int WARM_UP_PASSES = 20;
+    private static final int MEASURED_PASSES = 50;
+    private static final int ROW_COUNT = 200;
+    private static final int ROW_SIZE = 150;
+    private static final long GESTURE_GAP_MILLIS = 1000;
+
+    private com.sun.management.ThreadMXBean m_threadBean;
+    private long m_allocationOverhead;
+    private long m_nextDownTime;
+
+    private SheetTestRig m_rig;
+    private RecordingCoordinatorLayout m_parent;
+    private FrameLayout m_sheet;
+    private RecyclerView m_list;
+    private SlidingSheetBehavior<FrameLayout> m_behavior;
+
+    @Before
+    public void setUp()
+    {
+        m_nextDownTime = SystemClock.uptimeMillis();
+    }
+
+    @Test
+    public void replaysEverySampleGesture() throws IOException
+    {
+        for (int edge = SampleScreen.EDGE_LEFT; edge <= SampleScreen.EDGE_BOTTOM; edge++)
+        {
+            for (String gesture : GestureRecordingGenerator.GESTURES)
+            {
+                setUpScreen(edge);
+                checkReplay(SampleScreen.loadGesture(edge, gesture), gesture);
+            }
+        }
+    }
+
+    @Test
+    public void measuresEverySampleGesture() throws IOException
+    {
+        String reportPath = System.getProperty(REPORT_PROPERTY);
+        Assume.assumeTrue(reportPath != null && !reportPath.isEmpty());
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        m_threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(m_threadBean.isCurrentThreadCpuTimeSupported());
+        Assume.assumeTrue(m_threadBean.isThreadAllocatedMemorySupported());
+        m_threadBean.setThreadCpuTimeEnabled(true);
+        m_threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        m_allocationOverhead = allocatedBytes();
+        m_allocationOverhead = allocatedBytes() - m_allocationOverhead;
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.US, "%-7s %-17s %6s %13s %12s%n", "edge", "gesture", "events", "cpu ns/event", "bytes/event"));
+
+        for (int edge = SampleScreen.EDGE_LEFT; edge <= SampleScreen.EDGE_BOTTOM; edge++)
+        {
+            for (String gesture : GestureRecordingGenerator.GESTURES)
+            {
+                setUpScreen(edge);
+                GestureRecording recording = SampleScreen.loadGesture(edge, gesture);
+                for (int pass = 0; pass < WARM_UP_PASSES; pass++)
+                    replay(recording, null);
+
+                long[] totals = new long[2];
+                for (int pass = 0; pass < MEASURED_PASSES; pass++)
+                    replay(recording, totals);
+
+                long events = (long) recording.size() * MEASURED_PASSES;
+                report.append(String.format(Locale.US, "%-7s %-17s %6d %13d %12d%n", SampleScreen.EDGE_NAMES[edge - 1],
+                                            gesture, recording.size(), totals[0] / events, totals[1] / events));
+            }
+        }
+
+        File reportFile = new File(reportPath);
+        File reportDir = reportFile.getAbsoluteFile().getParentFile();
+        assertTrue(reportDir.isDirectory() || reportDir.mkdirs());
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(reportFile), "UTF-8");
+        try
+        {
+            writer.write(report.toString());
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void recordsTheEventsItReplays() throws IOException
+    {
+        setUpScreen(SampleScreen.EDGE_BOTTOM);
+        GestureRecording sample = SampleScreen.loadGesture(SampleScreen.EDGE_BOTTOM, "slowDrag");
+
+        m_parent.startRecording(SampleScreen.EDGE_BOTTOM);
+        replay(sample, null);
+        GestureRecording recorded = m_parent.stopRecording();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorded.write(out);
+        GestureRecording copy = GestureRecording.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(SampleScreen.EDGE_BOTTOM, copy.getEdge());
+        assertEquals(sample.size(), copy.size());
+        for (int i = 0; i < sample.size(); i++)
+        {
+            assertEquals(sample.getAction(i), copy.getAction(i));
+            assertEquals(sample.getTimeMillis(i), copy.getTimeMillis(i));
+            assertEquals(sample.getX(i), copy.getX(i));
+            assertEquals(sample.getY(i), copy.getY(i));
+        }
+    }
+
+    /**
+     * Lays out the sample screen with an expanded sheet on the {@code edge}
+     */
+    private void setUpScreen(int edge)
+    {
+        m_rig = new SheetTestRig();
+        m_parent = m_rig.attach(new RecordingCoordinatorLayout(m_rig.context));
+
+        boolean vertical = SampleScreen.isVertical(edge);
+        m_list = new RecyclerView(m_rig.context);
+        m_list.setLayoutManager(new LinearLayoutManager(m_rig.context, vertical ? LinearLayoutManager.VERTICAL : LinearLayoutManager.HORIZONTAL, false));
+        m_list.setAdapter(new RowAdapter(vertical));
+
+        // The drag handle is on the side of the sheet that faces the middle of the parent
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                                                                       ViewGroup.LayoutParams.MATCH_PARENT);
+        switch (edge)
+        {
+            case SampleScreen.EDGE_LEFT:
+                params.rightMargin = SampleScreen.HANDLE_SIZE;
+                break;
+            case SampleScreen.EDGE_RIGHT:
+                params.leftMargin = SampleScreen.HANDLE_SIZE;
+                break;
+            case SampleScreen.EDGE_TOP:
+                params.bottomMargin = SampleScreen.HANDLE_SIZE;
+                break;
+            default:
+                params.topMargin = SampleScreen.HANDLE_SIZE;
+                break;
+        }
+
+        m_sheet = new FrameLayout(m_rig.context);
+        m_sheet.addView(m_list, params);
+
+        m_behavior = new SlidingSheetBehavior<>(m_rig.context, SlideEdge.fromIntValue(edge));
+        m_behavior.setPeekSize(SampleScreen.HANDLE_SIZE);
+        m_behavior.setState(SlideState.Expanded);
+        m_rig.addSheet(m_sheet, SampleScreen.SHEET_SIZE, m_behavior);
+    }
+
+    /**
+     * Replays the {@code recording} once, starting from the expanded sheet with its list scrolled
+     * to the middle
+     *
+     * @param totals The CPU time and the bytes allocated are added to the first and second
+     *               element, or null if the pass isn't measured
+     */
+    private void replay(GestureRecording recording, long[] totals)
+    {
+        resetScreen();
+        MotionEvent[] events = createEvents(recording);
+
+        ShadowLooper.pauseMainLooper();
+        long cpuTime = totals != null ? m_threadBean.getCurrentThreadCpuTime() : 0;
+        long allocated = totals != null ? allocatedBytes() : 0;
+
+        for (MotionEvent event : events)
+            m_parent.dispatchTouchEvent(event);
+
+        if (totals != null)
+        {
+            totals[0] += m_threadBean.getCurrentThreadCpuTime() - cpuTime;
+            totals[1] += allocatedBytes() - allocated - m_allocationOverhead;
+        }
+
+        // A fling of the list would keep posting animation frames while the clock stands still
+        m_list.stopScroll();
+        ShadowLooper.unPauseMainLooper();
+
+        for (MotionEvent event : events)
+            event.recycle();
+    }
+
+    /**
+     * Replays the {@code recording} once without measuring it, and checks that the sheet only
+     * moves for the gestures that drag it
+     */
+    private void checkReplay(GestureRecording recording, String gesture)
+    {
+        resetScreen();
+        MotionEvent[] events = createEvents(recording);
+        float start = getSheetPosition();
+        float maxDistance = 0;
+
+        ShadowLooper.pauseMainLooper();
+        for (MotionEvent event : events)
+        {
+            m_parent.dispatchTouchEvent(event);
+            maxDistance = Math.max(maxDistance, Math.abs(getSheetPosition() - start));
+        }
+
+        m_list.stopScroll();
+        ShadowLooper.unPauseMainLooper();
+
+        for (MotionEvent event : events)
+            event.recycle();
+
+        boolean dragsSheet = "slowDrag".equals(gesture) || "fling".equals(gesture);
+        assertTrue(gesture + " on the " + SampleScreen.EDGE_NAMES[recording.getEdge() - 1] + " edge",
+                   dragsSheet == (maxDistance > 0));
+    }
+
+    private void resetScreen()
+    {
+        m_rig.layout();
+        m_behavior.setState(SlideState.Expanded);
+        m_rig.settle(m_behavior);
+
+        ((LinearLayoutManager) m_list.getLayoutManager()).scrollToPositionWithOffset(ROW_COUNT / 2, 0);
+        m_rig.layout();
+    }
+
+    /**
+     * Creates the events of the {@code recording}, as a gesture that starts after the previous one
+     */
+    private MotionEvent[] createEvents(GestureRecording recording)
+    {
+        long downTime = m_nextDownTime;
+        MotionEvent[] events = new MotionEvent[recording.size()];
+        for (int i = 0; i < events.length; i++)
+        {
+            events[i] = MotionEvent.obtain(downTime, downTime + recording.getTimeMillis(i), recording.getAction(i),
+                                           recording.getX(i), recording.getY(i), 0);
+        }
+
+        m_nextDownTime = downTime + recording.getTimeMillis(events.length - 1) + GESTURE_GAP_MILLIS;
+        return events;
+    }
+
+    private float getSheetPosition()
+    {
+        boolean vertical = m_behavior.getSlideEdge() == SlideEdge.Top || m_behavior.getSlideEdge() == SlideEdge.Bottom;
+        return vertical ? m_sheet.getTop() + m_sheet.getTranslationY() : m_sheet.getLeft() + m_sheet.getTranslationX();
+    }
+
+    private long allocatedBytes()
+    {
+        return m_threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Records the touch events it is given, in the format of the sample recordings
+     */
+    static final class RecordingCoordinatorLayout extends CoordinatorLayout
+    {
+        private GestureRecording m_recording;
+
+        RecordingCoordinatorLayout(Context context)
+        {
+            super(context);
+        }
+
+        void startRecording(int edge)
+        {
+            m_recording = new GestureRecording(edge);
+        }
+
+        GestureRecording stopRecording()
+        {
+            GestureRecording recording = m_recording;
+            m_recording = null;
+            return recording;
+        }
+
+        @Override
+        public boolean dispatchTouchEvent(MotionEvent event)
+        {
+            if (m_recording != null)
+                m_recording.record(event.getActionMasked(), event.getEventTime(), event.getX(), event.getY());
+
+            return super.dispatchTouchEvent(event);
+        }
+    }
+
+    private static final class RowAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
+    {
+        private final boolean m_vertical;
+
+        RowAdapter(boolean vertical)
+        {
+            m_vertical = vertical;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType)
+        {
+            View row = new View(parent.getContext());
+            row.setLayoutParams(new RecyclerView.LayoutParams(m_vertical ? ViewGroup.LayoutParams.MATCH_PARENT : ROW_SIZE,
+                                                              m_vertical ? ROW_SIZE : ViewGroup.LayoutParams.MATCH_PARENT));
+            return new RecyclerView.ViewHolder(row) {};
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {}
+
+        @Override
+        public int getItemCount()
+        {
+            return ROW_COUNT;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.magouyaware.slidingsheetbehavior.behavior;
+
+import android.support.design.widget.CoordinatorLayout;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.magouyaware.slidingsheetbehavior.enums.SlideEdge;
+import com.magouyaware.slidingsheetbehavior.enums.SlideState;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Checks that a sheet that is gone while hidden can still be revealed with an edge drag when a
+ * clickable view under the edge takes the touch, and that other touches still reach that view
+ */
+@RunWith(RobolectricTestRunner.class)
+public class GoneSheetEdgeDragTest
+{
+    private static final int SHEET_SIZE = 300;
+    private static final int PEEK_SIZE = 100;
+    private static final int DRAG_STEPS = 10;
+
+    private SheetTestRig m_rig;
+    private CoordinatorLayout m_parent;
+    private FrameLayout m_sheet;
+    private SlidingSheetBehavior<FrameLayout> m_behavior;
+    private int m_clicks;
+
+    @Before
+    public void setUp()
+    {
+        m_rig = new SheetTestRig();
+        m_parent = m_rig.attach();
+
+        View sibling = new View(m_rig.context);
+        sibling.setOnClickListener(new View.OnClickListener()
+        {
+            @Override
+            public void onClick(View view)
+            {
+                m_clicks++;
+            }
+        });
+        m_parent.addView(sibling, new CoordinatorLayout.LayoutParams(CoordinatorLayout.LayoutParams.MATCH_PARENT,
+                                                                     CoordinatorLayout.LayoutParams.MATCH_PARENT));
+
+        // The left edge is used since the drag helper measures the edges from the parent's position
+        m_sheet = new FrameLayout(m_rig.context);
+        m_behavior = new SlidingSheetBehavior<>(m_rig.context, SlideEdge.Left);
+        m_behavior.setPeekSize(PEEK_SIZE);
+        m_behavior.setHideable(true);
+        m_behavior.enableEdgeDrag(true);
+        m_behavior.setGoneWhenHidden(true);
+        m_behavior.setState(SlideState.Hidden);
+        m_rig.addSheet(m_sheet, SHEET_SIZE, m_behavior);
+
+        assertEquals(View.GONE, m_sheet.getVisibility());
+    }
+
+    @Test
+    public void edgeDragRevealsTheSheetOverAClickableView()
+    {
+        float y = m_parent.getHeight() / 2;
+        m_rig.down(1, y);
+        for (int i = 1; i <= DRAG_STEPS; i++)
+            m_rig.move(1 + i * PEEK_SIZE / DRAG_STEPS, y);
+
+        assertEquals(View.VISIBLE, m_sheet.getVisibility());
+        assertEquals(SlideState.Dragging, m_behavior.getState());
+
+        m_rig.up(1 + PEEK_SIZE, y);
+        m_rig.settle(m_behavior);
+
+        assertNotEquals(SlideState.Hidden, m_behavior.getState());
+        assertEquals(0, m_clicks);
+    }
+
+    @Test
+    public void touchesAwayFromTheEdgeReachTheClickableView()
+    {
+        float x = m_parent.getWidth() / 2;
+        float y = m_parent.getHeight() / 2;
+        m_rig.down(x, y);
+        m_rig.up(x, y);
+
+        assertEquals(1, m_clicks);
+        assertEquals(View.GONE, m_sheet.getVisibility());
+        assertEquals(SlideState.Hidden, m_behavior.getState());
+    }
+}
@@ -0,0 +1,159 @@
+package com.magouyaware.slidingsheetbehavior.behavior;
+
+import android.content.Context;
+import android.support.design.widget.CoordinatorLayout;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.magouyaware.slidingsheetbehavior.enums.SlideEdge;
+import com.magouyaware.slidingsheetbehavior.enums.SlideState;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that laying out the parent for changes to the sheet's siblings skips the sheet's own
+ * layout work, by counting the layouts of the sheet that the behavior asks the parent for
+ */
+@RunWith(RobolectricTestRunner.class)
+public class LayoutShortCircuitTest
+{
+    private static final int SHEET_SIZE = 400;
+    private static final int PEEK_SIZE = 100;
+    private static final int LAYOUTS = 20;
+
+    private SheetTestRig m_rig;
+    private CountingCoordinatorLayout m_parent;
+    private View m_sibling;
+    private FrameLayout m_sheet;
+    private SlidingSheetBehavior<FrameLayout> m_behavior;
+
+    @Before
+    public void setUp()
+    {
+        m_rig = new SheetTestRig();
+        m_parent = m_rig.attach(new CountingCoordinatorLayout(m_rig.context));
+
+        m_sibling = new View(m_rig.context);
+        m_parent.addView(m_sibling, new CoordinatorLayout.LayoutParams(CoordinatorLayout.LayoutParams.MATCH_PARENT,
+                                                                       CoordinatorLayout.LayoutParams.MATCH_PARENT));
+
+        m_sheet = new FrameLayout(m_rig.context);
+        m_behavior = new SlidingSheetBehavior<>(m_rig.context, SlideEdge.Bottom);
+        m_behavior.setPeekSize(PEEK_SIZE);
+        m_rig.addSheet(m_sheet, SHEET_SIZE, m_behavior);
+        m_parent.sheet = m_sheet;
+    }
+
+    @Test
+    public void siblingLayoutsSkipTheSheetLayout()
+    {
+        m_parent.sheetLayouts = 0;
+        for (int i = 0; i < LAYOUTS; i++)
+        {
+            m_sibling.requestLayout();
+            m_rig.layout();
+        }
+
+        assertEquals(0, m_parent.sheetLayouts);
+        assertEquals(m_parent.getHeight() - PEEK_SIZE, m_sheet.getTop());
+    }
+
+    @Test
+    public void siblingLayoutsKeepAnExpandedSheetInPlace()
+    {
+        m_behavior.setState(SlideState.Expanded);
+        m_rig.settle(m_behavior);
+
+        m_parent.sheetLayouts = 0;
+        for (int i = 0; i < LAYOUTS; i++)
+        {
+            m_sibling.requestLayout();
+            m_rig.layout();
+        }
+
+        assertEquals(0, m_parent.sheetLayouts);
+        assertEquals(m_parent.getHeight() - SHEET_SIZE, m_sheet.getTop());
+    }
+
+    @Test
+    public void sheetLayoutsDoTheWork()
+    {
+        m_parent.sheetLayouts = 0;
+        for (int i = 0; i < LAYOUTS; i++)
+        {
+            m_sheet.requestLayout();
+            m_rig.layout();
+        }
+
+        assertEquals(LAYOUTS, m_parent.sheetLayouts);
+        assertEquals(m_parent.getHeight() - PEEK_SIZE, m_sheet.getTop());
+    }
+
+    @Test
+    public void resizingTheSheetDoesTheWorkOnce()
+    {
+        m_behavior.setState(SlideState.Expanded);
+        m_rig.settle(m_behavior);
+
+        m_parent.sheetLayouts = 0;
+        m_sheet.getLayoutParams().height = SHEET_SIZE / 2;
+        m_sheet.requestLayout();
+        m_rig.layout();
+        m_sibling.requestLayout();
+        m_rig.layout();
+
+        assertEquals(1, m_parent.sheetLayouts);
+        assertEquals(m_parent.getHeight() - SHEET_SIZE / 2, m_sheet.getTop());
+    }
+
+    @Test
+    public void changingTheParentPaddingDoesTheWork()
+    {
+        m_parent.sheetLayouts = 0;
+        m_parent.setPadding(0, 0, 0, PEEK_SIZE);
+        m_rig.layout();
+
+        assertEquals(1, m_parent.sheetLayouts);
+    }
+
+    @Test
+    public void changingTheSheetMarginsDoesTheWork()
+    {
+        // A margin in the sliding direction doesn't change the size the sheet is measured at
+        m_parent.sheetLayouts = 0;
+        ((CoordinatorLayout.LayoutParams) m_sheet.getLayoutParams()).topMargin = PEEK_SIZE;
+        m_sibling.requestLayout();
+        m_rig.layout();
+
+        assertEquals(1, m_parent.sheetLayouts);
+    }
+
+    /**
+     * Counts the times the parent lays out the sheet, which the behavior asks for whenever it
+     * doesn't skip its layout
+     */
+    static final class CountingCoordinatorLayout extends CoordinatorLayout
+    {
+        View sheet;
+        int sheetLayouts;
+
+        CountingCoordinatorLayout(Context context)
+        {
+            super(context);
+        }
+
+        @Override
+        public void onLayoutChild(View child, int layoutDirection)
+        {
+            if (child == sheet)
+                sheetLayouts++;
+
+            super.onLayoutChild(child, layoutDirection);
+        }
+    }
+}
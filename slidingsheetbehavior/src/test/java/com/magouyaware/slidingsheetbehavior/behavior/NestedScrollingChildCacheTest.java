@@ -0,0 +1,150 @@
+package com.magouyaware.slidingsheetbehavior.behavior;
+
+import android.content.Context;
+import android.support.v4.widget.NestedScrollView;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.magouyaware.slidingsheetbehavior.enums.SlideEdge;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the nested scrolling child is only searched for when the sheet's hierarchy may have
+ * changed, by counting the children the behavior looks at while the sheet is laid out again
+ */
+@RunWith(RobolectricTestRunner.class)
+public class NestedScrollingChildCacheTest
+{
+    private static final int SHEET_SIZE = 400;
+    private static final int DEPTH = 10;
+    private static final int SIBLINGS = 5;
+    private static final int LAYOUTS = 20;
+
+    private SheetTestRig m_rig;
+    private CountingFrameLayout m_sheet;
+    private NestedScrollView m_scrollingChild;
+    private SlidingSheetBehavior<CountingFrameLayout> m_behavior;
+
+    @Before
+    public void setUp()
+    {
+        m_rig = new SheetTestRig();
+        m_rig.attach();
+
+        // The scrolling child sits below a column of containers that each have a few other views
+        m_sheet = new CountingFrameLayout(m_rig.context);
+        CountingFrameLayout container = m_sheet;
+        for (int level = 0; level < DEPTH; level++)
+        {
+            for (int i = 0; i < SIBLINGS; i++)
+                container.addView(new View(m_rig.context));
+
+            CountingFrameLayout next = new CountingFrameLayout(m_rig.context);
+            container.addView(next);
+            container = next;
+        }
+
+        m_scrollingChild = new NestedScrollView(m_rig.context);
+        container.addView(m_scrollingChild);
+
+        CountingFrameLayout.s_behaviorCalls = 0;
+        m_behavior = m_rig.addSheet(m_sheet, SHEET_SIZE, SlideEdge.Bottom);
+    }
+
+    @Test
+    public void firstLayoutFindsTheScrollingChild()
+    {
+        assertSame(m_scrollingChild, m_behavior.getNestedScrollingChild());
+        assertEquals(DEPTH * (SIBLINGS + 1) + 1, CountingFrameLayout.s_behaviorCalls);
+    }
+
+    @Test
+    public void repeatedLayoutsDoNotSearchTheSheet()
+    {
+        CountingFrameLayout.s_behaviorCalls = 0;
+        for (int i = 0; i < LAYOUTS; i++)
+        {
+            m_sheet.requestLayout();
+            m_rig.layout();
+        }
+
+        assertEquals(0, CountingFrameLayout.s_behaviorCalls);
+        assertSame(m_scrollingChild, m_behavior.getNestedScrollingChild());
+    }
+
+    @Test
+    public void invalidatingSearchesTheSheetOnce()
+    {
+        CountingFrameLayout.s_behaviorCalls = 0;
+        m_behavior.invalidateNestedScrollingChild();
+        for (int i = 0; i < LAYOUTS; i++)
+        {
+            m_sheet.requestLayout();
+            m_rig.layout();
+        }
+
+        assertEquals(DEPTH * (SIBLINGS + 1) + 1, CountingFrameLayout.s_behaviorCalls);
+        assertSame(m_scrollingChild, m_behavior.getNestedScrollingChild());
+    }
+
+    @Test
+    public void removingTheScrollingChildSearchesAgain()
+    {
+        ((FrameLayout) m_scrollingChild.getParent()).removeView(m_scrollingChild);
+        NestedScrollView replacement = new NestedScrollView(m_rig.context);
+        m_sheet.addView(replacement, 0);
+
+        CountingFrameLayout.s_behaviorCalls = 0;
+        m_rig.layout();
+
+        assertSame(replacement, m_behavior.getNestedScrollingChild());
+        assertTrue(CountingFrameLayout.s_behaviorCalls > 0);
+    }
+
+    @Test
+    public void addingAScrollingChildDeeperInTheSheetSearchesAgain()
+    {
+        // The sheet's direct children stay the same, the new view goes into the second level
+        FrameLayout container = (FrameLayout) m_sheet.getChildAt(SIBLINGS);
+        NestedScrollView added = new NestedScrollView(m_rig.context);
+        container.addView(added, 0);
+
+        CountingFrameLayout.s_behaviorCalls = 0;
+        m_rig.layout();
+
+        assertSame(added, m_behavior.getNestedScrollingChild());
+        assertTrue(CountingFrameLayout.s_behaviorCalls > 0);
+    }
+
+    /**
+     * Counts the children that the behavior asks for, but not the ones the framework asks for
+     * while measuring, laying out and drawing
+     */
+    static final class CountingFrameLayout extends FrameLayout
+    {
+        static int s_behaviorCalls;
+
+        CountingFrameLayout(Context context)
+        {
+            super(context);
+        }
+
+        @Override
+        public View getChildAt(int index)
+        {
+            StackTraceElement caller = new Throwable().getStackTrace()[1];
+            if (caller.getClassName().startsWith(SlidingSheetBehavior.class.getName()))
+                s_behaviorCalls++;
+
+            return super.getChildAt(index);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.magouyaware.slidingsheetbehavior.behavior;
+
+import android.support.annotation.NonNull;
+import android.support.design.widget.CoordinatorLayout;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.magouyaware.slidingsheetbehavior.callbacks.SimpleSlidingSheetCallback;
+import com.magouyaware.slidingsheetbehavior.enums.SlideEdge;
+import com.magouyaware.slidingsheetbehavior.enums.SlideState;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Checks that states requested in quick succession are coalesced into a single settle toward the
+ * last one, whether or not the sheet is waiting for a layout
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RapidStateChangeTest
+{
+    private static final int SHEET_SIZE = 400;
+    private static final int PEEK_SIZE = 100;
+
+    private SheetTestRig m_rig;
+    private FrameLayout m_sheet;
+    private SlidingSheetBehavior<FrameLayout> m_behavior;
+    private SheetCoordinator m_coordinator;
+    private final List<SlideState> m_restStates = new ArrayList<>();
+
+    @Before
+    public void setUp()
+    {
+        m_rig = new SheetTestRig();
+        m_rig.attach();
+
+        m_sheet = new FrameLayout(m_rig.context);
+        m_behavior = new SlidingSheetBehavior<>(m_rig.context, SlideEdge.Bottom);
+        m_behavior.setPeekSize(PEEK_SIZE);
+        m_behavior.setHideable(true);
+        m_rig.addSheet(m_sheet, SHEET_SIZE, m_behavior);
+        m_coordinator = SheetCoordinator.from(m_rig.getParent());
+
+        m_behavior.addSlidingSheetCallback(new SimpleSlidingSheetCallback()
+        {
+            @Override
+            public void onStateChanged(@NonNull View slidingSheet, SlideState newState)
+            {
+                if (!newState.isMoving())
+                    m_restStates.add(newState);
+            }
+        });
+    }
+
+    @Test
+    public void requestsWhileSettlingEndInTheLastState()
+    {
+        m_behavior.setState(SlideState.Expanded);
+        m_rig.runFrame();
+        m_behavior.setState(SlideState.Collapsed);
+        m_behavior.setState(SlideState.Hidden);
+        m_behavior.setState(SlideState.Expanded);
+
+        assertEquals(SlideState.Expanded, m_behavior.getTargetState());
+        assertEquals(1, m_coordinator.getSettlingCount());
+
+        m_rig.settle(m_behavior);
+
+        assertEquals(SlideState.Expanded, m_behavior.getState());
+        assertEquals(Arrays.asList(SlideState.Expanded), m_restStates);
+        assertEquals(m_rig.getParent().getHeight() - SHEET_SIZE, m_sheet.getTop());
+        assertEquals(0, m_coordinator.getSettlingCount());
+    }
+
+    @Test
+    public void requestsWhileLayoutIsPendingAreCoalesced()
+    {
+        ShadowLooper.pauseMainLooper();
+        m_sheet.requestLayout();
+
+        m_behavior.setState(SlideState.Expanded);
+        m_behavior.setState(SlideState.Hidden);
+        m_behavior.setState(SlideState.Expanded);
+
+        // Nothing moves until the layout is over
+        assertEquals(SlideState.Expanded, m_behavior.getTargetState());
+        assertEquals(SlideState.Collapsed, m_behavior.getState());
+        assertEquals(0, m_coordinator.getSettlingCount());
+
+        ShadowLooper.unPauseMainLooper();
+        m_rig.layout();
+        m_rig.settle(m_behavior);
+
+        assertEquals(SlideState.Expanded, m_behavior.getState());
+        assertEquals(Arrays.asList(SlideState.Expanded), m_restStates);
+        assertEquals(m_rig.getParent().getHeight() - SHEET_SIZE, m_sheet.getTop());
+    }
+
+    @Test
+    public void requestingTheRestingStateAgainReturnsToIt()
+    {
+        m_behavior.setState(SlideState.Expanded);
+        m_rig.runFrame();
+        m_behavior.setState(SlideState.Collapsed);
+
+        assertEquals(SlideState.Collapsed, m_behavior.getTargetState());
+        m_rig.settle(m_behavior);
+
+        assertEquals(SlideState.Collapsed, m_behavior.getState());
+        assertEquals(Arrays.asList(SlideState.Collapsed), m_restStates);
+        assertEquals(m_rig.getParent().getHeight() - PEEK_SIZE, m_sheet.getTop());
+    }
+
+    @Test
+    public void repeatedRequestsForTheSameStateAreIgnored()
+    {
+        for (int i = 0; i < 10; i++)
+            m_behavior.setState(SlideState.Expanded);
+
+        assertEquals(1, m_coordinator.getSettlingCount());
+        m_rig.settle(m_behavior);
+
+        assertEquals(SlideState.Expanded, m_behavior.getState());
+        assertEquals(Arrays.asList(SlideState.Expanded), m_restStates);
+    }
+
+    @Test
+    public void detachingTheLastSheetWhileSettlingStopsTheFrames()
+    {
+        m_behavior.setState(SlideState.Expanded);
+        m_rig.runFrame();
+        assertEquals(1, m_coordinator.getSettlingCount());
+
+        ((CoordinatorLayout.LayoutParams) m_sheet.getLayoutParams()).setBehavior(null);
+
+        assertEquals(0, m_coordinator.getSettlingCount());
+        assertFalse(m_coordinator.isFramePosted());
+    }
+}
@@ -0,0 +1,82 @@
+package com.magouyaware.slidingsheetbehavior.behavior;
+
+import android.support.annotation.NonNull;
+import android.view.View;
+
+import com.magouyaware.slidingsheetbehavior.callbacks.ISheetPerformanceListener;
+import com.magouyaware.slidingsheetbehavior.enums.SlideState;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that a gesture only finishes once it has been released, even when the sheet comes to
+ * rest while the finger is still down
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SheetGestureTrackerTest
+{
+    private static final long DOWN_TIME = 1000;
+    private static final long UP_TIME = 1200;
+
+    private View m_sheet;
+    private SheetGestureTracker m_tracker;
+    private CountingListener m_listener;
+
+    @Before
+    public void setUp()
+    {
+        m_sheet = new View(RuntimeEnvironment.application);
+        m_tracker = new SheetGestureTracker();
+        m_listener = new CountingListener();
+    }
+
+    @Test
+    public void restingWhileTheFingerIsDownWaitsForTheRelease()
+    {
+        m_tracker.onTouchDown(m_sheet, DOWN_TIME);
+        m_tracker.onMovement();
+        m_tracker.onStateChanged(m_sheet, SlideState.Expanded, m_listener);
+        assertEquals(0, m_listener.finished);
+
+        m_tracker.onTouchReleased(m_sheet, SlideState.Expanded, UP_TIME, m_listener);
+        assertEquals(1, m_listener.finished);
+        assertSame(SlideState.Expanded, m_listener.endState);
+    }
+
+    @Test
+    public void settlingAfterTheReleaseFinishesTheGesture()
+    {
+        m_tracker.onTouchDown(m_sheet, DOWN_TIME);
+        m_tracker.onMovement();
+        m_tracker.onTouchReleased(m_sheet, SlideState.Settling, UP_TIME, m_listener);
+        assertEquals(0, m_listener.finished);
+
+        m_tracker.onStateChanged(m_sheet, SlideState.Collapsed, m_listener);
+        assertEquals(1, m_listener.finished);
+        assertSame(SlideState.Collapsed, m_listener.endState);
+
+        // A second release of the same gesture, such as from the end of its nested scroll
+        m_tracker.onTouchReleased(m_sheet, SlideState.Collapsed, UP_TIME, m_listener);
+        assertEquals(1, m_listener.finished);
+    }
+
+    private static final class CountingListener implements ISheetPerformanceListener
+    {
+        int finished;
+        SlideState endState;
+
+        @Override
+        public void onGestureFinished(@NonNull View slidingSheet, @NonNull SheetGestureStats stats)
+        {
+            finished++;
+            endState = stats.getEndState();
+        }
+    }
+}
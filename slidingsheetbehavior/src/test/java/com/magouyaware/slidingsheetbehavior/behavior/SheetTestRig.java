@@ -0,0 +1,221 @@
+package com.magouyaware.slidingsheetbehavior.behavior;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.design.widget.CoordinatorLayout;
+import android.support.v7.appcompat.R;
+import android.util.DisplayMetrics;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.magouyaware.slidingsheetbehavior.enums.SlideEdge;
+
+import org.robolectric.Robolectric;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+/**
+ * Hosts sliding sheets in a {@link CoordinatorLayout} that fills an activity's window, so that
+ * Robolectric tests run the behavior the way it runs on a device: laid out by the window's
+ * traversals, touched through the parent's touch dispatch, and settled by Choreographer frames.
+ */
+final class SheetTestRig
+{
+    /**
+     * The time between frames, and between the touch events of a gesture, in milliseconds
+     */
+    static final int FRAME_MILLIS = 16;
+
+    private static final int MAX_SETTLE_FRAMES = 500;
+
+    final Activity activity;
+    final Context context;
+    private CoordinatorLayout m_parent;
+    private long m_downTime;
+    private long m_eventTime;
+
+    SheetTestRig()
+    {
+        // Frame callbacks run right away on an unpaused looper, so a settle that posts its next
+        // frame from inside a frame would never let the clock advance
+        ShadowChoreographer.setPostFrameCallbackDelay(FRAME_MILLIS);
+
+        // The CoordinatorLayout needs an AppCompat theme, and without an action bar the parent
+        // fills the window so that its edges are the window's edges
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class);
+        controller.get().setTheme(R.style.Theme_AppCompat_Light_NoActionBar);
+        activity = controller.setup().get();
+        context = activity;
+    }
+
+    /**
+     * Makes a plain {@link CoordinatorLayout} the content of the activity
+     */
+    CoordinatorLayout attach()
+    {
+        return attach(new CoordinatorLayout(context));
+    }
+
+    /**
+     * Makes the {@code parent} the content of the activity and lays it out
+     */
+    <P extends CoordinatorLayout> P attach(P parent)
+    {
+        m_parent = parent;
+        activity.setContentView(parent, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                                                                   ViewGroup.LayoutParams.MATCH_PARENT));
+        layout();
+        return parent;
+    }
+
+    CoordinatorLayout getParent()
+    {
+        return m_parent;
+    }
+
+    /**
+     * Adds the {@code sheet} to the parent with a new behavior that slides it from the
+     * {@code edge}, and lays it out
+     *
+     * @param size The size of the sheet in the direction it slides, the other direction fills
+     *             the parent
+     */
+    <V extends View> SlidingSheetBehavior<V> addSheet(V sheet, int size, SlideEdge edge)
+    {
+        return addSheet(sheet, size, new SlidingSheetBehavior<V>(context, edge));
+    }
+
+    /**
+     * Adds the {@code sheet} to the parent with the {@code behavior}, and lays it out
+     */
+    <V extends View> SlidingSheetBehavior<V> addSheet(V sheet, int size, SlidingSheetBehavior<V> behavior)
+    {
+        boolean vertical = behavior.getSlideEdge() == SlideEdge.Top || behavior.getSlideEdge() == SlideEdge.Bottom;
+        CoordinatorLayout.LayoutParams params = new CoordinatorLayout.LayoutParams(
+            vertical ? ViewGroup.LayoutParams.MATCH_PARENT : size,
+            vertical ? size : ViewGroup.LayoutParams.MATCH_PARENT);
+        params.setBehavior(behavior);
+
+        m_parent.addView(sheet, params);
+        layout();
+        return behavior;
+    }
+
+    /**
+     * Runs the pending traversals, and lays out the parent directly if they didn't
+     */
+    void layout()
+    {
+        ShadowLooper.idleMainLooper();
+
+        if (m_parent != null && m_parent.isLayoutRequested())
+        {
+            DisplayMetrics metrics = activity.getResources().getDisplayMetrics();
+            m_parent.measure(exactly(metrics.widthPixels), exactly(metrics.heightPixels));
+            m_parent.layout(0, 0, metrics.widthPixels, metrics.heightPixels);
+        }
+    }
+
+    /**
+     * Advances the clock by one frame, running the frame callbacks that are due
+     */
+    void runFrame()
+    {
+        ShadowLooper.idleMainLooper(FRAME_MILLIS);
+    }
+
+    /**
+     * Runs frames until the {@code behavior} rests in the state it is heading for
+     */
+    void settle(SlidingSheetBehavior<?> behavior)
+    {
+        for (int frame = 0; frame < MAX_SETTLE_FRAMES; frame++)
+        {
+            if (!behavior.getState().isMoving() && behavior.getState() == behavior.getTargetState())
+                return;
+
+            runFrame();
+        }
+
+        throw new AssertionError("The sheet did not settle in " + MAX_SETTLE_FRAMES + " frames");
+    }
+
+    boolean down(float x, float y)
+    {
+        m_eventTime = Math.max(m_eventTime + FRAME_MILLIS, SystemClock.uptimeMillis());
+        m_downTime = m_eventTime;
+        return dispatch(MotionEvent.ACTION_DOWN, x, y);
+    }
+
+    boolean move(float x, float y)
+    {
+        m_eventTime += FRAME_MILLIS;
+        return dispatch(MotionEvent.ACTION_MOVE, x, y);
+    }
+
+    boolean up(float x, float y)
+    {
+        return up(x, y, m_eventTime + FRAME_MILLIS);
+    }
+
+    /**
+     * Ends the gesture at the {@code eventTime}, for gestures whose moves were dispatched
+     * directly
+     */
+    boolean up(float x, float y, long eventTime)
+    {
+        m_eventTime = eventTime;
+        return dispatch(MotionEvent.ACTION_UP, x, y);
+    }
+
+    /**
+     * @return The down time of the current gesture
+     */
+    long getDownTime()
+    {
+        return m_downTime;
+    }
+
+    /**
+     * Dispatches a whole gesture that goes in a straight line from one point to another
+     *
+     * @param steps The number of move events between the down and the up event
+     */
+    void drag(float fromX, float fromY, float toX, float toY, int steps)
+    {
+        down(fromX, fromY);
+        for (int i = 1; i <= steps; i++)
+            move(fromX + (toX - fromX) * i / steps, fromY + (toY - fromY) * i / steps);
+
+        up(toX, toY);
+    }
+
+    /**
+     * Dispatches the {@code event} to the parent, as the window would
+     */
+    boolean dispatch(MotionEvent event)
+    {
+        return m_parent.dispatchTouchEvent(event);
+    }
+
+    private boolean dispatch(int action, float x, float y)
+    {
+        MotionEvent event = MotionEvent.obtain(m_downTime, m_eventTime, action, x, y, 0);
+        try
+        {
+            return dispatch(event);
+        }
+        finally
+        {
+            event.recycle();
+        }
+    }
+
+    private static int exactly(int size)
+    {
+        return View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.EXACTLY);
+    }
+}
@@ -0,0 +1,71 @@
+package com.magouyaware.slidingsheetbehavior.behavior;
+
+import android.support.design.widget.CoordinatorLayout;
+import android.widget.FrameLayout;
+
+import com.magouyaware.slidingsheetbehavior.enums.SlideEdge;
+import com.magouyaware.slidingsheetbehavior.enums.SlideState;
+import com.magouyaware.slidingsheetbehavior.settle.SpringSettleEngine;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that a sheet settled by a spring stops at the expanded position when a fast fling
+ * releases it just short of there, instead of following the spring past the end of its range
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SpringSettleOvershootTest
+{
+    private static final int SHEET_SIZE = 400;
+    private static final int PEEK_SIZE = 100;
+    private static final int SHORT_DISTANCE = 20;
+    private static final int DRAG_STEPS = 2;
+    private static final int MAX_FRAMES = 200;
+
+    private SheetTestRig m_rig;
+    private CoordinatorLayout m_parent;
+    private FrameLayout m_sheet;
+    private SlidingSheetBehavior<FrameLayout> m_behavior;
+
+    @Before
+    public void setUp()
+    {
+        m_rig = new SheetTestRig();
+        m_parent = m_rig.attach();
+
+        m_sheet = new FrameLayout(m_rig.context);
+        m_behavior = new SlidingSheetBehavior<>(m_rig.context, SlideEdge.Bottom);
+        m_behavior.setPeekSize(PEEK_SIZE);
+        m_behavior.setSettleEngine(new SpringSettleEngine());
+        m_rig.addSheet(m_sheet, SHEET_SIZE, m_behavior);
+    }
+
+    @Test
+    public void fastFlingOverAShortDistanceStopsAtExpanded()
+    {
+        int expandedTop = m_parent.getHeight() - SHEET_SIZE;
+        float x = m_parent.getWidth() / 2;
+        float fromY = m_parent.getHeight() - PEEK_SIZE / 2;
+        float toY = fromY - (SHEET_SIZE - PEEK_SIZE - SHORT_DISTANCE);
+
+        // A few large moves release the sheet close to the expanded position at a high velocity
+        m_rig.drag(x, fromY, x, toY, DRAG_STEPS);
+        assertEquals(SlideState.Settling, m_behavior.getState());
+
+        for (int frame = 0; frame < MAX_FRAMES && m_behavior.getState() == SlideState.Settling; frame++)
+        {
+            m_rig.runFrame();
+            assertTrue("The sheet went past the expanded position to " + m_sheet.getTop(),
+                       m_sheet.getTop() >= expandedTop);
+        }
+
+        assertEquals(SlideState.Expanded, m_behavior.getState());
+        assertEquals(expandedTop, m_sheet.getTop());
+    }
+}
@@ -0,0 +1,236 @@
+package com.magouyaware.slidingsheetbehavior.behavior;
+
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.widget.FrameLayout;
+
+import com.magouyaware.slidingsheetbehavior.enums.SlideEdge;
+import com.magouyaware.slidingsheetbehavior.enums.SlideState;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that dragging a sheet doesn't allocate once the drag is under way.  Robolectric's own
+ * velocity tracker allocates for every movement, so it is replaced by one that doesn't, and the
+ * main looper is paused so that the traversal and frame that the drag schedules are only posted
+ * once.  The allocations are measured over many moves and checked against a bound well below the
+ * size of the smallest object, so that an allocation the JVM makes now and then on the test's
+ * thread doesn't fail it, but an allocation for every move does.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = TouchAllocationTest.ShadowNonAllocatingVelocityTracker.class)
+public class TouchAllocationTest
+{
+    private static final int SHEET_SIZE = 400;
+    private static final int PEEK_SIZE = 100;
+    private static final int WARM_UP_MOVES = 100;
+    private static final int MEASURED_MOVES = 200;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final int TOTAL_MOVES = MEASURED_MOVES * MEASURED_ROUNDS;
+    private static final long MAX_BYTES_PER_MOVE = 4;
+    private static final int DRAG_RANGE = 150;
+
+    private SheetTestRig m_rig;
+    private SlidingSheetBehavior<FrameLayout> m_behavior;
+    private com.sun.management.ThreadMXBean m_threadBean;
+
+    @Before
+    public void setUp()
+    {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        m_threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(m_threadBean.isThreadAllocatedMemorySupported());
+        m_threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        m_rig = new SheetTestRig();
+        m_rig.attach();
+
+        m_behavior = new SlidingSheetBehavior<>(m_rig.context, SlideEdge.Bottom);
+        m_behavior.setPeekSize(PEEK_SIZE);
+        m_rig.addSheet(new FrameLayout(m_rig.context), SHEET_SIZE, m_behavior);
+    }
+
+    @Test
+    public void dragMovesDoNotAllocate()
+    {
+        int x = m_rig.getParent().getWidth() / 2;
+        int startY = m_rig.getParent().getHeight() - PEEK_SIZE / 2;
+
+        ShadowLooper.pauseMainLooper();
+        m_rig.down(x, startY);
+
+        // Build the events up front, so that only their dispatch is measured
+        MotionEvent[] warmUp = createMoves(x, startY, WARM_UP_MOVES, 1);
+        MotionEvent[][] rounds = new MotionEvent[MEASURED_ROUNDS][];
+        for (int round = 0; round < MEASURED_ROUNDS; round++)
+            rounds[round] = createMoves(x, startY, MEASURED_MOVES, WARM_UP_MOVES + 1 + round * MEASURED_MOVES);
+
+        dispatchAll(warmUp);
+        assertEquals(SlideState.Dragging, m_behavior.getState());
+
+        long overhead = allocatedBytes();
+        overhead = allocatedBytes() - overhead;
+
+        long allocated = 0;
+        for (MotionEvent[] round : rounds)
+        {
+            long before = allocatedBytes();
+            dispatchAll(round);
+            allocated += Math.max(0, allocatedBytes() - before - overhead);
+        }
+
+        SlideState stateAfterMoves = m_behavior.getState();
+
+        MotionEvent[] lastRound = rounds[MEASURED_ROUNDS - 1];
+        m_rig.up(x, startY, lastRound[MEASURED_MOVES - 1].getEventTime() + SheetTestRig.FRAME_MILLIS);
+        ShadowLooper.unPauseMainLooper();
+        recycleAll(warmUp);
+        for (MotionEvent[] round : rounds)
+            recycleAll(round);
+
+        assertTrue("Allocated " + allocated + " bytes over " + TOTAL_MOVES + " drag moves",
+                   allocated <= MAX_BYTES_PER_MOVE * TOTAL_MOVES);
+        assertEquals(SlideState.Dragging, stateAfterMoves);
+    }
+
+    /**
+     * Creates move events that drag up and down over the sheet's range, following a down event at
+     * {@code startY} that is dispatched by the rig
+     */
+    private MotionEvent[] createMoves(int x, int startY, int count, int firstIndex)
+    {
+        MotionEvent[] events = new MotionEvent[count];
+        long downTime = m_rig.getDownTime();
+        for (int i = 0; i < count; i++)
+        {
+            int index = firstIndex + i;
+            int distance = index % (2 * DRAG_RANGE);
+            float y = startY - (distance < DRAG_RANGE ? distance : 2 * DRAG_RANGE - distance);
+            events[i] = MotionEvent.obtain(downTime, downTime + index * SheetTestRig.FRAME_MILLIS,
+                                           MotionEvent.ACTION_MOVE, x, y, 0);
+        }
+
+        return events;
+    }
+
+    private void dispatchAll(MotionEvent[] events)
+    {
+        for (MotionEvent event : events)
+            m_rig.dispatch(event);
+    }
+
+    private static void recycleAll(MotionEvent[] events)
+    {
+        for (MotionEvent event : events)
+            event.recycle();
+    }
+
+    private long allocatedBytes()
+    {
+        return m_threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Keeps just enough of each gesture to report a velocity, without allocating
+     */
+    @Implements(VelocityTracker.class)
+    public static class ShadowNonAllocatingVelocityTracker
+    {
+        private boolean m_started;
+        private long m_startTime;
+        private float m_startX;
+        private float m_startY;
+        private long m_lastTime;
+        private float m_lastX;
+        private float m_lastY;
+        private float m_velocityX;
+        private float m_velocityY;
+
+        @Implementation
+        public void clear()
+        {
+            m_started = false;
+            m_velocityX = 0;
+            m_velocityY = 0;
+        }
+
+        @Implementation
+        public void addMovement(MotionEvent event)
+        {
+            if (!m_started || event.getActionMasked() == MotionEvent.ACTION_DOWN)
+            {
+                m_started = true;
+                m_startTime = event.getEventTime();
+                m_startX = event.getX();
+                m_startY = event.getY();
+            }
+
+            m_lastTime = event.getEventTime();
+            m_lastX = event.getX();
+            m_lastY = event.getY();
+        }
+
+        @Implementation
+        public void computeCurrentVelocity(int units)
+        {
+            computeCurrentVelocity(units, Float.MAX_VALUE);
+        }
+
+        @Implementation
+        public void computeCurrentVelocity(int units, float maxVelocity)
+        {
+            long duration = m_lastTime - m_startTime;
+            if (!m_started || duration <= 0)
+            {
+                m_velocityX = 0;
+                m_velocityY = 0;
+                return;
+            }
+
+            m_velocityX = clamp((m_lastX - m_startX) * units / duration, maxVelocity);
+            m_velocityY = clamp((m_lastY - m_startY) * units / duration, maxVelocity);
+        }
+
+        @Implementation
+        public float getXVelocity()
+        {
+            return m_velocityX;
+        }
+
+        @Implementation
+        public float getYVelocity()
+        {
+            return m_velocityY;
+        }
+
+        @Implementation
+        public float getXVelocity(int id)
+        {
+            return m_velocityX;
+        }
+
+        @Implementation
+        public float getYVelocity(int id)
+        {
+            return m_velocityY;
+        }
+
+        private static float clamp(float velocity, float maxVelocity)
+        {
+            return Math.max(-maxVelocity, Math.min(maxVelocity, velocity));
+        }
+    }
+}